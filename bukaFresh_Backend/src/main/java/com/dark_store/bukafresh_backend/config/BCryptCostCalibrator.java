@@ -0,0 +1,44 @@
+package com.dark_store.bukafresh_backend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * Picks a BCrypt cost for this machine. Each extra cost point doubles the work, so one timed
+ * sample at the minimum cost is enough to predict the rest.
+ */
+@Slf4j
+public final class BCryptCostCalibrator {
+
+    private static final int SAMPLES = 3;
+
+    private BCryptCostCalibrator() {}
+
+    public static int calibrate(PasswordHashingProperties props) {
+        if (props.getCost() != null) {
+            log.info("BCrypt cost pinned to {}", props.getCost());
+            return props.getCost();
+        }
+
+        int cost = props.getMinCost();
+        String salt = BCrypt.gensalt(cost);
+
+        // Warm-up so JIT compilation does not count against the budget
+        BCrypt.hashpw("calibration", salt);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < SAMPLES; i++) {
+            BCrypt.hashpw("calibration", salt);
+        }
+        double millis = (System.nanoTime() - start) / 1_000_000.0 / SAMPLES;
+
+        while (cost < props.getMaxCost() && millis * 2 <= props.getTargetLatencyMs()) {
+            cost++;
+            millis *= 2;
+        }
+
+        log.info("BCrypt cost calibrated to {} (~{} ms per hash, budget {} ms)",
+                cost, Math.round(millis), props.getTargetLatencyMs());
+        return cost;
+    }
+}
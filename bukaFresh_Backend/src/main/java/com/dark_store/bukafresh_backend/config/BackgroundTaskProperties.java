@@ -0,0 +1,45 @@
+package com.dark_store.bukafresh_backend.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "background-tasks")
+@Data
+public class BackgroundTaskProperties {
+
+    public enum Overflow {
+        // Refuse the new task; the caller gets a ServiceBusyException
+        REJECT,
+        // Silently discard the new task
+        DROP_NEWEST,
+        // Discard the longest-waiting queued task to make room
+        DROP_OLDEST
+    }
+
+    // How long shutdown waits for queued and running tasks to finish
+    private Duration drainTimeout = Duration.ofSeconds(30);
+
+    private Map<String, Category> categories = new LinkedHashMap<>(Map.of(
+            "onepipe-invoice", new Category(20, 200, Overflow.REJECT, Duration.ofSeconds(60)),
+            "sms", new Category(10, 500, Overflow.DROP_OLDEST, Duration.ofSeconds(30))
+    ));
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Category {
+        private int maxConcurrency;
+        private int queueCapacity;
+        private Overflow overflow;
+        // Upper bound on a single task, so a hung call cannot hold a slot forever
+        private Duration timeout;
+    }
+}
@@ -0,0 +1,29 @@
+package com.dark_store.bukafresh_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "billing")
+@Data
+public class BillingProperties {
+
+    private boolean enabled = true;
+    // Length of a billing window; each run opens the next window of billing slots, so the day's
+    // charges are spread evenly instead of landing at midnight
+    private Duration window = Duration.ofMinutes(15);
+    // Slices of the user buckets that nodes bill independently; a divisor of 1024 keeps them even
+    private int partitions = 8;
+    // Subscriptions pulled from the cursor, charged and advanced together
+    private int batchSize = 100;
+    // Mandate debits in flight at once
+    private int concurrency = 8;
+    // Debits per second across all nodes when rate-limit.mode=mongo, per node otherwise
+    private int ratePerSecond = 20;
+    private Duration batchTimeout = Duration.ofMinutes(5);
+    // Cap per run; the checkpoint carries the rest over to the next run
+    private int maxPerRun = 10000;
+}
@@ -0,0 +1,23 @@
+package com.dark_store.bukafresh_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "cluster-jobs")
+@Data
+public class ClusterJobProperties {
+
+    // Lease owner name; defaults to host name plus a random suffix
+    private String nodeId;
+    // How often each node looks for partitions it can claim, including ones a dead node left behind
+    private Duration tick = Duration.ofSeconds(30);
+    // A crashed node's partitions are taken over at most this long after its last heartbeat
+    private Duration lease = Duration.ofMinutes(2);
+    private Duration heartbeat = Duration.ofSeconds(30);
+    // Partitions this node runs at the same time
+    private int workers = 2;
+}
@@ -0,0 +1,18 @@
+package com.dark_store.bukafresh_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "delivery-quota")
+@Data
+public class DeliveryQuotaProperties {
+
+    private boolean enabled = true;
+    // Runs after the month turns only find counters still on the old month, so this can be short
+    private Duration interval = Duration.ofHours(1);
+    private int partitions = 4;
+}
@@ -0,0 +1,30 @@
+package com.dark_store.bukafresh_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "dunning")
+@Data
+public class DunningProperties {
+
+    private boolean enabled = true;
+    // Retry times, each measured from the original failure
+    private List<Duration> schedule = List.of(Duration.ofDays(1), Duration.ofDays(3), Duration.ofDays(7));
+    // Subscription status once every retry has failed
+    private String exhaustedStatus = "INACTIVE";
+
+    private Duration interval = Duration.ofMinutes(15);
+    private int partitions = 4;
+    private int batchSize = 100;
+    // Retry debits in flight at once; they share billing's rate limit
+    private int concurrency = 4;
+    private Duration batchTimeout = Duration.ofMinutes(5);
+    // A retry still awaiting its result after this long is debited again with the same reference
+    private Duration resultTimeout = Duration.ofDays(1);
+    private Duration retention = Duration.ofDays(90);
+}
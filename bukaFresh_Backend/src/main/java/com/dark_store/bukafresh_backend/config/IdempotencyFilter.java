@@ -0,0 +1,155 @@
+package com.dark_store.bukafresh_backend.config;
+
+import com.dark_store.bukafresh_backend.service.IdempotencyService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * Makes authenticated POST and PUT requests that carry an {@code Idempotency-Key} header safe to
+ * retry. The first request stores its response; retries with the same key and body get that
+ * response back without reaching the controller. Runs after Spring Security so keys are scoped
+ * to the calling user.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    // Larger responses are not snapshotted; the request then runs without idempotency protection
+    private static final int MAX_SNAPSHOT_BYTES = 64 * 1024;
+
+    private final IdempotencyService idempotencyService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !("POST".equals(method) || "PUT".equals(method))
+                || request.getHeader(HEADER) == null
+                || request.getHeader(HEADER).isBlank();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication.getName() == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        CachedBodyRequest cached = CachedBodyRequest.of(request);
+        // The query string is part of the request: ?status=PAUSED and ?status=CANCELED must not match
+        String requestHash = sha256(request.getQueryString(), cached.body());
+
+        IdempotencyService.Claim claim = idempotencyService.begin(
+                authentication.getName(),
+                request.getMethod(),
+                request.getRequestURI(),
+                request.getHeader(HEADER),
+                requestHash
+        );
+
+        switch (claim.status()) {
+            case REPLAY -> {
+                writeSnapshot(response, claim.snapshot());
+                return;
+            }
+            case IN_PROGRESS -> {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                writeError(response, HttpServletResponse.SC_CONFLICT,
+                        "A request with this Idempotency-Key is still being processed");
+                return;
+            }
+            case MISMATCH -> {
+                writeError(response, 422, "Idempotency-Key was already used with a different request");
+                return;
+            }
+            case ACQUIRED -> {
+                // fall through to run the request
+            }
+        }
+
+        ContentCachingResponseWrapper wrapped = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(cached, wrapped);
+        } catch (IOException | ServletException | RuntimeException e) {
+            idempotencyService.abandon(claim.recordId(), claim.lockId());
+            throw e;
+        }
+
+        int status = wrapped.getStatus();
+        byte[] body = wrapped.getContentAsByteArray();
+
+        // Server errors and throttling are transient, so the client may retry them for real
+        if (status >= 500 || status == 429 || body.length > MAX_SNAPSHOT_BYTES) {
+            idempotencyService.abandon(claim.recordId(), claim.lockId());
+        } else {
+            idempotencyService.complete(claim.recordId(), claim.lockId(), requestHash, new IdempotencyService.Snapshot(
+                    status,
+                    wrapped.getContentType(),
+                    new String(body, StandardCharsets.UTF_8)
+            ));
+        }
+        wrapped.copyBodyToResponse();
+    }
+
+    private void writeSnapshot(HttpServletResponse response, IdempotencyService.Snapshot snapshot) throws IOException {
+        response.setStatus(snapshot.status());
+        response.setHeader("Idempotent-Replayed", "true");
+        if (snapshot.contentType() != null) {
+            response.setContentType(snapshot.contentType());
+        }
+        if (snapshot.body() != null) {
+            response.getOutputStream().write(snapshot.body().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void writeError(HttpServletResponse response, int status, String error) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        String json = """
+                {
+                    "status": %d,
+                    "error": "%s",
+                    "timestamp": "%s"
+                }
+                """.formatted(status, error, Instant.now().toString());
+
+        response.getWriter().write(json);
+    }
+
+    private static String sha256(String queryString, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((queryString == null ? "" : queryString).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            return HexFormat.of().formatHex(digest.digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package com.dark_store.bukafresh_backend.config;
 
+import com.dark_store.bukafresh_backend.model.Permission;
+import com.dark_store.bukafresh_backend.model.User;
+import com.dark_store.bukafresh_backend.service.TokenRevocationService;
+import com.dark_store.bukafresh_backend.service.TokenVersionService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -14,13 +20,30 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Set;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
+    private static final Set<String> PUBLIC_PATHS = Set.of(SecurityConfig.PUBLIC_ENDPOINTS);
+
     private final JwtUtil jwtUtil;
+    private final VerifiedClaimsCache verifiedClaimsCache;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenVersionService tokenVersionService;
+    private final TokenRevocationService tokenRevocationService;
+
+    // "claims" builds the principal from the token alone; "database" loads the user on every request
+    @Value("${jwt.principal-mode:claims}")
+    private String principalMode;
+
+    // Public endpoints carry no token, so they must not be rejected for a missing header
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return PUBLIC_PATHS.contains(request.getRequestURI());
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -28,23 +51,13 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
 
         System.out.println("JWT Filter processing request: " + request.getMethod() + " " + request.getRequestURI());
-        
+
         final String authHeader = request.getHeader("Authorization");
         final String userId;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             System.out.println("No Authorization header or not Bearer token, proceeding without authentication");
-              response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            String json = """
-                
-                {
-                    "status": 401,
-                    "error": "Missing or invalid Authorization header",
-                    "timestamp": "%s"
-                }
-                """.formatted(Instant.now().toString());
-
-            response.getWriter().write(json);
+            writeUnauthorized(response, "Missing or invalid Authorization header");
             return;
         }
 
@@ -53,27 +66,49 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         String token = authHeader.substring(7);
 
-        if (!jwtUtil.validateToken(token)) {
+        Claims claims = verifiedClaimsCache.getVerifiedClaims(token);
+
+        if (claims == null) {
             System.out.println("JWT token validation failed");
-            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            String json = """
-                
-                {
-                    "status": 401,
-                    "error": "Missing or invalid Authorization header",
-                    "timestamp": "%s"
-                }
-                """.formatted(Instant.now().toString());
+            writeUnauthorized(response, "Missing or invalid Authorization header");
+            return;
+        }
+
+        // Bloom filter in front of the deny-list; only filter hits reach MongoDB
+        if (tokenRevocationService.isRevoked(claims.getId())) {
+            writeUnauthorized(response, "Token has been revoked");
+            return;
+        }
+
+        userId = claims.getSubject();
+        long permissionMask = jwtUtil.extractPermissionMask(claims);
+        long tokenVersion = jwtUtil.extractTokenVersion(claims);
 
-            response.getWriter().write(json);            return;
+        // Logout-all and refresh-token reuse bump the version; that must hold in both modes
+        if (!tokenVersionService.isCurrent(userId, tokenVersion)) {
+            writeUnauthorized(response, "Token has been revoked");
+            return;
         }
-        userId = jwtUtil.extractUsername(token);
-        List<String> permissions = jwtUtil.extractPermissions(token);
 
-        var authorities = permissions.stream()
-                .map(SimpleGrantedAuthority::new)
-                .toList();
-        UserDetails userDetails = userDetailsService.loadUserByUsername(userId);
+        UserDetails userDetails;
+        Collection<? extends GrantedAuthority> authorities;
+        if ("database".equalsIgnoreCase(principalMode)) {
+            // The stored user is the source of truth here, so permissions follow its current role
+            userDetails = userDetailsService.loadUserByUsername(userId);
+            authorities = userDetails instanceof User user && user.getRole() != null
+                    ? Permission.authoritiesOf(user.getRole().permissionMask())
+                    : userDetails.getAuthorities();
+        } else {
+            userDetails = new JwtPrincipal(
+                    userId,
+                    claims.get("email", String.class),
+                    jwtUtil.extractRoles(claims),
+                    permissionMask,
+                    tokenVersion
+            );
+            // Shared immutable list per mask, so nothing is rebuilt per request
+            authorities = Permission.authoritiesOf(permissionMask);
+        }
 
         if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
@@ -85,4 +120,18 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
-} 
+
+    private void writeUnauthorized(HttpServletResponse response, String error) throws IOException {
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        String json = """
+
+                {
+                    "status": 401,
+                    "error": "%s",
+                    "timestamp": "%s"
+                }
+                """.formatted(error, Instant.now().toString());
+
+        response.getWriter().write(json);
+    }
+}
@@ -0,0 +1,38 @@
+package com.dark_store.bukafresh_backend.config;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Authenticated principal built only from signed JWT claims, so the request path
+ * does not have to load the {@code users} document.
+ */
+public record JwtPrincipal(
+        String id,
+        String email,
+        List<String> roles,
+        long permissionMask,
+        long tokenVersion
+) implements UserDetails {
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return roles.stream()
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .toList();
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+}
@@ -1,31 +1,40 @@
 package com.dark_store.bukafresh_backend.config;
 
+import com.dark_store.bukafresh_backend.model.Permission;
 import com.dark_store.bukafresh_backend.model.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
+import javax.crypto.SecretKey;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
 public class JwtUtil {
-    private final long EXPIRATION;
-    private final Key key;
+    // Access tokens are only verified locally, so keep them short; refresh tokens carry the session
+    private final Duration accessTokenTtl;
+    private final SecretKey key;
+    // Parsers are immutable and thread-safe, so build it once instead of per call
+    private final JwtParser parser;
 
-    public JwtUtil(@Value("${jwt_secret}") String secret, @Value("${jwt_expiration}") String expiration) {
+    public JwtUtil(@Value("${jwt_secret}") String secret,
+                   @Value("${jwt.access-token-ttl:PT15M}") Duration accessTokenTtl) {
 
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
-        this.EXPIRATION= Long.parseLong(expiration);
+        this.accessTokenTtl = accessTokenTtl;
+        this.parser = Jwts.parser().verifyWith(key).build();
     }
 
     public String generateToken(User user) {
@@ -34,27 +43,22 @@ public class JwtUtil {
         List<String> roles = List.of(user.getRole().name());
         System.out.println(roles);
 
-        List<String> permissions = user.getRole()
-                .permissions()
-                .stream()
-                .map(Enum::name)
-                .toList();
-
-
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(user.getId())
                 .claim("roles", roles)
                 .claim("email", user.getEmail())
-                .claim("permissions", permissions)
+                .claim("perm", user.getRole().permissionMask())
+                .claim("ver", user.getTokenVersion() == null ? 0L : user.getTokenVersion())
                 .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + EXPIRATION))
+                .expiration(new Date(System.currentTimeMillis() + accessTokenTtl.toMillis()))
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parser().setSigningKey(key).build().parseClaimsJws(token);
+            parseClaims(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
@@ -70,12 +74,56 @@ public class JwtUtil {
                 .compact();
     }
 
+    /**
+     * Verifies the signature and expiry of the token and returns its claims.
+     * Throws {@link JwtException} if the token is invalid.
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
     public List<String> extractPermissions(String token) {
-        Claims claims = extractAllClaims(token);
+        return extractPermissions(extractAllClaims(token));
+    }
+
+    public List<String> extractPermissions(Claims claims) {
+        return Permission.fromMask(extractPermissionMask(claims)).stream()
+                .map(Enum::name)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Permission bitmask from the compact "perm" claim, falling back to the legacy
+     * "permissions" name list for tokens issued before the claim existed.
+     */
+    public long extractPermissionMask(Claims claims) {
+        Number mask = claims.get("perm", Number.class);
+        if (mask != null) {
+            return mask.longValue();
+        }
+
         List<?> rawList = claims.get("permissions", List.class);
+        if (rawList == null) {
+            return 0L;
+        }
+        return Permission.maskOfNames(rawList.stream()
+                .map(Object::toString)
+                .toList());
+    }
+
+    public List<String> extractRoles(Claims claims) {
+        List<?> rawList = claims.get("roles", List.class);
+        if (rawList == null) {
+            return List.of();
+        }
         return rawList.stream()
                 .map(Object::toString)
-                .collect(Collectors.toList());
+                .toList();
+    }
+
+    public long extractTokenVersion(Claims claims) {
+        Number version = claims.get("ver", Number.class);
+        return version == null ? 0L : version.longValue();
     }
 
     public String extractUsername(String token) {
@@ -92,6 +140,6 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        return parseClaims(token);
     }
 } 
\ No newline at end of file
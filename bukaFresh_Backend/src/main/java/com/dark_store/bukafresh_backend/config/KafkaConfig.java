@@ -0,0 +1,92 @@
+package com.dark_store.bukafresh_backend.config;
+
+import com.dark_store.bukafresh_backend.dto.event.PaymentSucceededEvent;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaConsumerFactoryCustomizer;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.util.Map;
+
+/**
+ * Kafka wiring for the payment saga. Connection settings stay on {@code spring.kafka.*}; this only
+ * pins what the saga relies on: an idempotent, acks=all producer, JSON events, retries with backoff
+ * and a dead-letter topic per event topic.
+ */
+@Configuration
+public class KafkaConfig {
+
+    private static final String DLT_SUFFIX = ".DLT";
+
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer paymentEventsProducerCustomizer(PaymentEventsProperties properties) {
+        return factory -> factory.updateConfigs(Map.of(
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class,
+                ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+                ProducerConfig.ACKS_CONFIG, "all",
+                ProducerConfig.LINGER_MS_CONFIG, (int) properties.getOutbox().getLinger().toMillis(),
+                ProducerConfig.MAX_BLOCK_MS_CONFIG, properties.getOutbox().getMaxBlock().toMillis()
+        ));
+    }
+
+    @Bean
+    public DefaultKafkaConsumerFactoryCustomizer paymentEventsConsumerCustomizer() {
+        // A record that cannot be deserialized goes straight to the DLT instead of blocking the partition
+        return factory -> factory.updateConfigs(Map.of(
+                ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class,
+                ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class,
+                JsonDeserializer.TRUSTED_PACKAGES, PaymentSucceededEvent.class.getPackageName(),
+                ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false,
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest"
+        ));
+    }
+
+    @Bean
+    public CommonErrorHandler paymentEventsErrorHandler(KafkaOperations<Object, Object> kafkaOperations,
+                                                        PaymentEventsProperties properties) {
+        PaymentEventsProperties.Consumer consumer = properties.getConsumer();
+
+        ExponentialBackOff backOff = new ExponentialBackOff(consumer.getInitialBackoff().toMillis(), 2.0);
+        backOff.setMaxInterval(consumer.getMaxBackoff().toMillis());
+        backOff.setMaxAttempts(consumer.getMaxAttempts() - 1);
+
+        return new DefaultErrorHandler(new DeadLetterPublishingRecoverer(kafkaOperations), backOff);
+    }
+
+    @Bean
+    public KafkaAdmin.NewTopics paymentEventTopics(PaymentEventsProperties properties) {
+        return new KafkaAdmin.NewTopics(
+                topic(properties.getPaymentSucceededTopic(), properties),
+                topic(properties.getPaymentSucceededTopic() + DLT_SUFFIX, properties),
+                topic(properties.getPaymentFailedTopic(), properties),
+                topic(properties.getPaymentFailedTopic() + DLT_SUFFIX, properties),
+                topic(properties.getSubscriptionActivatedTopic(), properties),
+                topic(properties.getSubscriptionActivatedTopic() + DLT_SUFFIX, properties)
+        );
+    }
+
+    // DeadLetterPublishingRecoverer keeps the original partition, so a DLT needs as many partitions
+    private static NewTopic topic(String name, PaymentEventsProperties properties) {
+        return TopicBuilder.name(name)
+                .partitions(properties.getPartitions())
+                .replicas(properties.getReplicas())
+                .build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.dark_store.bukafresh_backend.config;
+
+import com.dark_store.bukafresh_backend.model.Delivery;
+import com.dark_store.bukafresh_backend.model.EmailVerificationToken;
+import com.dark_store.bukafresh_backend.model.IdempotencyRecord;
+import com.dark_store.bukafresh_backend.model.Payment;
+import com.dark_store.bukafresh_backend.model.PaymentRetry;
+import com.dark_store.bukafresh_backend.model.RateLimitWindow;
+import com.dark_store.bukafresh_backend.model.RefreshToken;
+import com.dark_store.bukafresh_backend.model.RevokedToken;
+import com.dark_store.bukafresh_backend.model.SettlementReference;
+import com.dark_store.bukafresh_backend.model.Subscription;
+import com.dark_store.bukafresh_backend.model.WebhookInboxEntry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the annotated indexes (TTL, unique, partial) that the application relies on for
+ * correctness, independent of {@code spring.data.mongodb.auto-index-creation}. Startup fails if a
+ * unique index cannot be created.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MongoIndexInitializer {
+
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(
+            EmailVerificationToken.class,
+            RateLimitWindow.class,
+            RevokedToken.class,
+            RefreshToken.class,
+            WebhookInboxEntry.class,
+            IdempotencyRecord.class,
+            Payment.class,
+            Delivery.class,
+            Subscription.class,
+            PaymentRetry.class,
+            SettlementReference.class
+    );
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+
+        List<String> missingUniqueIndexes = new ArrayList<>();
+
+        for (Class<?> documentClass : INDEXED_DOCUMENTS) {
+            IndexOperations indexOps = mongoTemplate.indexOps(documentClass);
+            resolver.resolveIndexFor(documentClass).forEach(index -> {
+                try {
+                    indexOps.createIndex(index);
+                } catch (Exception e) {
+                    log.error("Failed to create index {} on {}: {}",
+                            index.getIndexKeys(), documentClass.getSimpleName(), e.getMessage());
+                    if (Boolean.TRUE.equals(index.getIndexOptions().get("unique"))) {
+                        missingUniqueIndexes.add(documentClass.getSimpleName() + " " + index.getIndexKeys());
+                    }
+                }
+            });
+        }
+
+        // Several writes (one open subscription per user, one payment per idempotency key, one
+        // delivery per payment) have no other duplicate check, so do not run without them
+        if (!missingUniqueIndexes.isEmpty()) {
+            throw new IllegalStateException("Unique indexes could not be created: " + missingUniqueIndexes
+                    + ". Remove the duplicate documents (or upgrade MongoDB for partial filters) and restart.");
+        }
+    }
+}
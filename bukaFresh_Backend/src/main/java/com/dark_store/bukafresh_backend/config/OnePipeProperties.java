@@ -5,6 +5,8 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties(prefix = "onepipe")
 @Data
@@ -16,4 +18,34 @@ public class OnePipeProperties {
     private String billerCode;
 //    private String encryptionKey;
     private String mockMode;
+
+    private Http http = new Http();
+
+    @Data
+    public static class Http {
+        // Connection pool, separate from any other outbound client
+        private int maxConnections = 50;
+        private int pendingAcquireMaxCount = 100;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+
+        private Duration connectTimeout = Duration.ofSeconds(3);
+        private Duration responseTimeout = Duration.ofSeconds(10);
+        // Overall budget for one call, retries included
+        private Duration callDeadline = Duration.ofSeconds(20);
+
+        private int maxRetries = 2;
+        private Duration retryBackoff = Duration.ofMillis(200);
+        private Duration maxRetryBackoff = Duration.ofSeconds(2);
+
+        private float failureRateThreshold = 50;
+        private Duration slowCallThreshold = Duration.ofSeconds(5);
+        private int slidingWindowSize = 20;
+        private int minimumNumberOfCalls = 10;
+        private Duration openStateWait = Duration.ofSeconds(30);
+
+        // Concurrent calls allowed before new ones are rejected
+        private int maxConcurrentCalls = 20;
+    }
 }
@@ -0,0 +1,25 @@
+package com.dark_store.bukafresh_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "security.password-hashing")
+@Data
+public class PasswordHashingProperties {
+
+    // Worker threads dedicated to BCrypt; defaults to the number of cores
+    private int threads = Runtime.getRuntime().availableProcessors();
+    // Hash requests allowed to wait for a worker before new ones are rejected
+    private int queueCapacity = 64;
+    // How long a request thread waits for its hash before giving up
+    private long timeoutMs = 5000;
+
+    // Startup calibration picks the highest cost in [minCost, maxCost] that hashes within this budget
+    private long targetLatencyMs = 250;
+    private int minCost = 10;
+    private int maxCost = 14;
+    // Set to pin the cost and skip calibration
+    private Integer cost;
+}
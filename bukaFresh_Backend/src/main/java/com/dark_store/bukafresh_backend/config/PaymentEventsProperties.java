@@ -0,0 +1,49 @@
+package com.dark_store.bukafresh_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.events")
+@Data
+public class PaymentEventsProperties {
+
+    private String paymentSucceededTopic = "payment.succeeded";
+    private String paymentFailedTopic = "payment.failed";
+    private String subscriptionActivatedTopic = "subscription.activated";
+    // Events are keyed by subscription id, so one subscription's events stay on one partition
+    private int partitions = 6;
+    private short replicas = 1;
+
+    private Outbox outbox = new Outbox();
+    private Consumer consumer = new Consumer();
+
+    @Data
+    public static class Outbox {
+        // Payments claimed and published per relay round
+        private int batchSize = 100;
+        private Duration pollInterval = Duration.ofSeconds(1);
+        // How long a claim is held before another node may publish the batch instead
+        private Duration lease = Duration.ofSeconds(30);
+        // Wait for broker acks of the whole batch before the outbox is cleared
+        private Duration sendTimeout = Duration.ofSeconds(10);
+        // Producer batching; a few ms lets one relay round go out in a handful of requests
+        private Duration linger = Duration.ofMillis(5);
+        // Producer max.block.ms: how long send() may block on metadata or a full buffer when the
+        // broker is unreachable, instead of Kafka's 60s default
+        private Duration maxBlock = Duration.ofSeconds(5);
+        // Relay rounds per poll, so a large backlog yields the scheduler thread between polls
+        private int maxBatchesPerPoll = 10;
+    }
+
+    @Data
+    public static class Consumer {
+        // Redeliveries of a failing record before it is parked on the topic's .DLT
+        private int maxAttempts = 6;
+        private Duration initialBackoff = Duration.ofSeconds(1);
+        private Duration maxBackoff = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,25 @@
+package com.dark_store.bukafresh_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.reconciliation")
+@Data
+public class PaymentReconciliationProperties {
+
+    private boolean enabled = true;
+    private Duration interval = Duration.ofMinutes(10);
+    // Only payments still PENDING this long after creation are queried
+    private Duration staleAfter = Duration.ofMinutes(30);
+    // Documents pulled from the cursor and checkpointed together
+    private int batchSize = 100;
+    // OnePipe status queries in flight at once
+    private int concurrency = 8;
+    private Duration batchTimeout = Duration.ofMinutes(2);
+    // Cap per run; the checkpoint carries the rest over to the next run
+    private int maxPerRun = 5000;
+}
@@ -0,0 +1,83 @@
+package com.dark_store.bukafresh_backend.config;
+
+import com.dark_store.bukafresh_backend.model.Permission;
+import com.dark_store.bukafresh_backend.model.User;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Authorizes {@link RequirePermission} methods with a single bitwise check. The required mask is
+ * resolved once per method and the granted mask comes straight from the principal.
+ */
+public class PermissionAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final Map<Method, Long> requiredMasks = new ConcurrentHashMap<>();
+
+    @Override
+    public AuthorizationResult authorize(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        long required = requiredMasks.computeIfAbsent(
+                invocation.getMethod(),
+                method -> resolveRequiredMask(method, invocation.getThis())
+        );
+
+        Authentication auth = authentication.get();
+        if (auth == null || !auth.isAuthenticated()) {
+            return DENIED;
+        }
+
+        return Permission.grants(grantedMask(auth), required) ? GRANTED : DENIED;
+    }
+
+    // Still abstract on AuthorizationManager; Spring Security itself only calls authorize
+    @Deprecated
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        return (AuthorizationDecision) authorize(authentication, invocation);
+    }
+
+    static long grantedMask(Authentication auth) {
+        Object principal = auth.getPrincipal();
+
+        if (principal instanceof JwtPrincipal jwtPrincipal) {
+            return jwtPrincipal.permissionMask();
+        }
+        if (principal instanceof User user && user.getRole() != null) {
+            return user.getRole().permissionMask();
+        }
+
+        // Slow path for any other kind of authentication
+        List<String> names = auth.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+        return Permission.maskOfNames(names);
+    }
+
+    private static long resolveRequiredMask(Method method, Object target) {
+        RequirePermission annotation = AnnotatedElementUtils.findMergedAnnotation(method, RequirePermission.class);
+
+        if (annotation == null && target != null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(
+                    AopUtils.getTargetClass(target), RequirePermission.class);
+        }
+
+        if (annotation == null) {
+            return 0L;
+        }
+        return Permission.maskOf(List.of(annotation.value()));
+    }
+}
@@ -0,0 +1,154 @@
+package com.dark_store.bukafresh_backend.config;
+
+import com.dark_store.bukafresh_backend.service.RateLimiter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Token-bucket limits for the unauthenticated endpoints, keyed by client IP and, where the route
+ * allows it, by the email address in the request. Runs ahead of Spring Security so rejected
+ * requests never reach BCrypt, MongoDB or the mail server.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Only small JSON bodies are buffered to look for an email; larger ones are limited by IP only
+    private static final int MAX_BUFFERED_BODY = 16 * 1024;
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties props;
+    private final ObjectMapper objectMapper;
+    private final Map<String, String> routeNamesByPath = new HashMap<>();
+    private final Map<String, Counter> rejectionsByRoute = new HashMap<>();
+
+    public RateLimitFilter(RateLimiter rateLimiter,
+                           RateLimitProperties props,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.props = props;
+        this.objectMapper = objectMapper;
+
+        props.getRoutes().forEach((name, route) -> {
+            routeNamesByPath.put(route.getPath(), name);
+            rejectionsByRoute.put(name, Counter.builder("rate_limit.rejected")
+                    .tag("route", name)
+                    .register(meterRegistry));
+        });
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !props.isEnabled()
+                || !"POST".equals(request.getMethod())
+                || !routeNamesByPath.containsKey(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String routeName = routeNamesByPath.get(request.getRequestURI());
+        RateLimitProperties.Route route = props.getRoutes().get(routeName);
+
+        long waitMillis = rateLimiter.tryAcquire(
+                "ip:" + routeName + ":" + clientIp(request), route.getIpCapacity(), route.getPeriod());
+        if (waitMillis > 0) {
+            reject(response, routeName, waitMillis);
+            return;
+        }
+
+        HttpServletRequest forwarded = request;
+        if (route.getEmailCapacity() > 0) {
+            String email = request.getParameter("email");
+
+            if (email == null && isSmallJsonBody(request)) {
+                CachedBodyRequest cached = new CachedBodyRequest(request);
+                forwarded = cached;
+                email = extractEmail(cached.body());
+            }
+
+            if (email != null && !email.isBlank()) {
+                waitMillis = rateLimiter.tryAcquire(
+                        "email:" + routeName + ":" + email.trim().toLowerCase(Locale.ROOT),
+                        route.getEmailCapacity(),
+                        route.getPeriod());
+                if (waitMillis > 0) {
+                    reject(response, routeName, waitMillis);
+                    return;
+                }
+            }
+        }
+
+        filterChain.doFilter(forwarded, response);
+    }
+
+    private void reject(HttpServletResponse response, String routeName, long waitMillis) throws IOException {
+        rejectionsByRoute.get(routeName).increment();
+        long retryAfterSeconds = Math.max(1, (waitMillis + 999) / 1000);
+
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        String json = """
+                {
+                    "status": 429,
+                    "error": "Too many requests, please try again later",
+                    "timestamp": "%s"
+                }
+                """.formatted(Instant.now().toString());
+
+        response.getWriter().write(json);
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (props.isTrustForwardedFor()) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                int comma = forwardedFor.indexOf(',');
+                return (comma < 0 ? forwardedFor : forwardedFor.substring(0, comma)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static boolean isSmallJsonBody(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        int length = request.getContentLength();
+        return contentType != null
+                && contentType.startsWith(MediaType.APPLICATION_JSON_VALUE)
+                && length > 0
+                && length <= MAX_BUFFERED_BODY;
+    }
+
+    private String extractEmail(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+            return email != null && email.isTextual() ? email.asText() : null;
+        } catch (IOException e) {
+            // Malformed JSON is left for the controller to reject
+            return null;
+        }
+    }
+}
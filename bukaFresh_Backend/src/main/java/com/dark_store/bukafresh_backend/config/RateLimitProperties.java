@@ -0,0 +1,48 @@
+package com.dark_store.bukafresh_backend.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "rate-limit")
+@Data
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    // "local" keeps buckets in memory per node; "mongo" shares fixed-window counters across nodes
+    private String mode = "local";
+    // Buckets untouched for this long are dropped
+    private Duration idleEviction = Duration.ofMinutes(10);
+    private int stripes = 64;
+    private long maxBuckets = 100_000;
+    // Only enable behind a proxy that overwrites X-Forwarded-For
+    private boolean trustForwardedFor = false;
+
+    private Map<String, Route> routes = new LinkedHashMap<>(Map.of(
+            "login", new Route("/api/users/login", 20, 5, Duration.ofMinutes(1)),
+            "register", new Route("/api/users/register", 10, 3, Duration.ofMinutes(10)),
+            "checkout-register", new Route("/api/users/checkout-register", 10, 3, Duration.ofMinutes(10)),
+            "resend-verification", new Route("/api/users/resend-verification-email", 5, 3, Duration.ofMinutes(10)),
+            "refresh", new Route("/api/users/refresh", 60, 0, Duration.ofMinutes(1)),
+            "onepipe-webhook", new Route("/webhooks/onepipe/payment", 300, 0, Duration.ofMinutes(1))
+    ));
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Route {
+        private String path;
+        // Requests allowed per period for one client IP
+        private int ipCapacity;
+        // Requests allowed per period for one email address; 0 disables the email key
+        private int emailCapacity;
+        private Duration period;
+    }
+}
@@ -0,0 +1,21 @@
+package com.dark_store.bukafresh_backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Boot's default scheduler has a single thread, so one slow {@code @Scheduled} task (the outbox
+ * relay with the broker down, say) would hold up token revocation refresh, the webhook inbox and
+ * the cluster job tick. Give them a small pool instead.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    @Bean
+    public ThreadPoolTaskSchedulerCustomizer schedulerPoolCustomizer(
+            @Value("${spring.task.scheduling.pool.size:4}") int poolSize) {
+        return scheduler -> scheduler.setPoolSize(poolSize);
+    }
+}
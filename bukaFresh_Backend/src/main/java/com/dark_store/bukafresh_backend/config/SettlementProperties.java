@@ -0,0 +1,18 @@
+package com.dark_store.bukafresh_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "settlement")
+@Data
+public class SettlementProperties {
+
+    // Settlement files are only read from here, and reports are written next to them
+    private String inboxDir = "settlements";
+    // Rows joined against MongoDB per $in lookup
+    private int chunkSize = 1000;
+    // OnePipe reports amounts in kobo; payments store naira
+    private boolean amountInKobo = true;
+}
@@ -1,14 +1,99 @@
 package com.dark_store.bukafresh_backend.config;
 
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
+
+/**
+ * Outbound HTTP for OnePipe: a dedicated Reactor Netty pool with keep-alive and timeouts, plus the
+ * circuit breaker and bulkhead used by {@code OnePipeHttpClient}. Pool, request and breaker
+ * metrics are published to the application's meter registry.
+ */
 @Configuration
 public class WebClientConfig {
 
+    public static final String ONEPIPE = "onepipe";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider onePipeConnectionProvider(OnePipeProperties props) {
+        OnePipeProperties.Http http = props.getHttp();
+
+        return ConnectionProvider.builder(ONEPIPE)
+                .maxConnections(http.getMaxConnections())
+                .pendingAcquireMaxCount(http.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(http.getPendingAcquireTimeout())
+                .maxIdleTime(http.getMaxIdleTime())
+                .maxLifeTime(http.getMaxLifeTime())
+                .evictInBackground(Duration.ofSeconds(30))
+                // reactor.netty.connection.provider.* gauges (active, idle, pending)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient webClient(WebClient.Builder builder,
+                               ConnectionProvider onePipeConnectionProvider,
+                               OnePipeProperties props) {
+        OnePipeProperties.Http http = props.getHttp();
+
+        HttpClient httpClient = HttpClient.create(onePipeConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) http.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .responseTimeout(http.getResponseTimeout());
+
+        // The Boot-managed builder records http.client.requests latency for every call
+        return builder
+                .baseUrl(props.getBaseUrl() == null ? "" : props.getBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    @Bean
+    public CircuitBreaker onePipeCircuitBreaker(OnePipeProperties props, MeterRegistry meterRegistry) {
+        OnePipeProperties.Http http = props.getHttp();
+
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(http.getFailureRateThreshold())
+                .slowCallDurationThreshold(http.getSlowCallThreshold())
+                .slowCallRateThreshold(http.getFailureRateThreshold())
+                .slidingWindowSize(http.getSlidingWindowSize())
+                .minimumNumberOfCalls(http.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(http.getOpenStateWait())
+                .permittedNumberOfCallsInHalfOpenState(3)
+                // A 4xx is our request being wrong, not OnePipe being unhealthy
+                .ignoreException(e -> e instanceof WebClientResponseException response
+                        && response.getStatusCode().is4xxClientError())
+                .build());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+
+        return registry.circuitBreaker(ONEPIPE);
+    }
+
     @Bean
-    public WebClient webClient() {
-        return WebClient.builder().build();
+    public Bulkhead onePipeBulkhead(OnePipeProperties props, MeterRegistry meterRegistry) {
+        BulkheadRegistry registry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(props.getHttp().getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+
+        return registry.bulkhead(ONEPIPE);
     }
-}
\ No newline at end of file
+}
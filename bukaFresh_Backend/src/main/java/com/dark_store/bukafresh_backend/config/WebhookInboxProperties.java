@@ -0,0 +1,25 @@
+package com.dark_store.bukafresh_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "webhook.inbox")
+@Data
+public class WebhookInboxProperties {
+
+    // Worker stripes; all entries for one payment reference run on the same stripe, in order
+    private int workers = 4;
+    // Entries claimed per poll; never more than the workers can take right away
+    private int batchSize = 50;
+    private Duration pollInterval = Duration.ofSeconds(1);
+    // How long a claim is held before another node may take the entry over
+    private Duration lease = Duration.ofMinutes(2);
+    private int maxAttempts = 8;
+    private Duration initialBackoff = Duration.ofSeconds(10);
+    private Duration maxBackoff = Duration.ofMinutes(30);
+    private Duration retention = Duration.ofDays(7);
+}
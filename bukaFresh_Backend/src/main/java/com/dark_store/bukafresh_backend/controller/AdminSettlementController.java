@@ -0,0 +1,32 @@
+package com.dark_store.bukafresh_backend.controller;
+
+import com.dark_store.bukafresh_backend.config.RequirePermission;
+import com.dark_store.bukafresh_backend.dto.response.ApiResponse;
+import com.dark_store.bukafresh_backend.dto.response.SettlementReconciliationResponse;
+import com.dark_store.bukafresh_backend.model.Permission;
+import com.dark_store.bukafresh_backend.service.SettlementReconciliationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/settlements")
+@RequiredArgsConstructor
+@Slf4j
+public class AdminSettlementController {
+
+    private final SettlementReconciliationService settlementReconciliationService;
+
+    @PostMapping("/reconcile")
+    @RequirePermission(Permission.ADMIN_VIEW_ALL)
+    public ResponseEntity<ApiResponse<SettlementReconciliationResponse>> reconcile(@RequestParam String file) {
+        log.info("Reconciling settlement file {}", file);
+
+        return ResponseEntity.ok(ApiResponse.<SettlementReconciliationResponse>builder()
+                .success(true)
+                .message("Settlement file reconciled")
+                .data(settlementReconciliationService.reconcile(file))
+                .build());
+    }
+}
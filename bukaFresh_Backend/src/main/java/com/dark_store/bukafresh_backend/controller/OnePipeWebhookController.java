@@ -1,7 +1,8 @@
 package com.dark_store.bukafresh_backend.controller;
 
 import com.dark_store.bukafresh_backend.dto.onePipe.response.OnePipeWebhookPayload;
-import com.dark_store.bukafresh_backend.service.PaymentService;
+import com.dark_store.bukafresh_backend.service.WebhookDedupService;
+import com.dark_store.bukafresh_backend.service.WebhookInboxService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -13,7 +14,8 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 public class OnePipeWebhookController {
 
-    private final PaymentService paymentService;
+    private final WebhookInboxService webhookInboxService;
+    private final WebhookDedupService webhookDedupService;
 
     @PostMapping("/payment")
     public ResponseEntity<Void> handleOnePipeWebhook(@RequestBody OnePipeWebhookPayload payload) {
@@ -24,17 +26,21 @@ public class OnePipeWebhookController {
             return ResponseEntity.badRequest().build();
         }
 
-        String paymentReference = payload.getDetails().getTransaction_ref(); // your internal payment ref
-        String status = payload.getDetails().getStatus();
-        String responseSummary = String.format(
-                "Amount: %s, Mandate: %s, Subscription: %s, Customer: %s",
-                payload.getDetails().getAmount(),
-                payload.getDetails().getMeta().getMandate_id(),
-                payload.getDetails().getMeta().getSubscription_id(),
-                payload.getDetails().getCustomer_ref()
-        );
-
-        paymentService.handleOnePipeCallback(paymentReference, status, responseSummary);
+        // Retried deliveries of a payload we already accepted are ACKed again without touching MongoDB
+        String dedupKey = webhookDedupService.keyOf(payload);
+        if (webhookDedupService.acceptIfFirst(dedupKey) != null) {
+            log.info("Duplicate OnePipe webhook for ref={} acknowledged from cache",
+                    payload.getDetails().getTransaction_ref());
+            return ResponseEntity.ok().build();
+        }
+
+        // Persist and ACK; the inbox workers do the payment, subscription and delivery updates
+        try {
+            webhookInboxService.enqueue(payload, dedupKey);
+        } catch (RuntimeException e) {
+            webhookDedupService.forget(dedupKey);
+            throw e;
+        }
 
         return ResponseEntity.ok().build();
     }
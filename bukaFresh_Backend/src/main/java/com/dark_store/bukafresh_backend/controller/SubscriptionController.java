@@ -1,15 +1,16 @@
 package com.dark_store.bukafresh_backend.controller;
 
+import com.dark_store.bukafresh_backend.config.RequirePermission;
 import com.dark_store.bukafresh_backend.dto.request.CreateSubscriptionRequest;
 import com.dark_store.bukafresh_backend.dto.response.ApiResponse;
 import com.dark_store.bukafresh_backend.dto.response.SubscriptionResponse;
+import com.dark_store.bukafresh_backend.model.Permission;
 import com.dark_store.bukafresh_backend.service.SubscriptionService;
 import com.dark_store.bukafresh_backend.util.CurrentUserUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -32,7 +33,7 @@ public class SubscriptionController {
     }
 
     @PostMapping
-    @PreAuthorize("hasAuthority('USER_PROFILE_UPDATE')")
+    @RequirePermission(Permission.USER_PROFILE_UPDATE)
     public ResponseEntity<ApiResponse<SubscriptionResponse>> createSubscription(
             @Valid @RequestBody CreateSubscriptionRequest request) {
         
@@ -47,7 +48,7 @@ public class SubscriptionController {
     }
 
     @GetMapping("/me")
-    @PreAuthorize("hasAuthority('USER_PROFILE_READ')")
+    @RequirePermission(Permission.USER_PROFILE_READ)
     public ResponseEntity<ApiResponse<SubscriptionResponse>> getCurrentUserSubscription() {
         String userId = CurrentUserUtil.getCurrentUserId();
         
@@ -62,7 +63,7 @@ public class SubscriptionController {
     }
 
     @GetMapping("/me/all")
-    @PreAuthorize("hasAuthority('USER_PROFILE_READ')")
+    @RequirePermission(Permission.USER_PROFILE_READ)
     public ResponseEntity<ApiResponse<List<SubscriptionResponse>>> getAllUserSubscriptions() {
         String userId = CurrentUserUtil.getCurrentUserId();
         
@@ -77,7 +78,7 @@ public class SubscriptionController {
     }
 
     @PutMapping("/{subscriptionId}/pause")
-    @PreAuthorize("hasAuthority('USER_PROFILE_UPDATE')")
+    @RequirePermission(Permission.USER_PROFILE_UPDATE)
     public ResponseEntity<ApiResponse<SubscriptionResponse>> pauseSubscription(
             @PathVariable String subscriptionId) {
         
@@ -92,7 +93,7 @@ public class SubscriptionController {
     }
 
     @PutMapping("/{subscriptionId}/resume")
-    @PreAuthorize("hasAuthority('USER_PROFILE_UPDATE')")
+    @RequirePermission(Permission.USER_PROFILE_UPDATE)
     public ResponseEntity<ApiResponse<SubscriptionResponse>> resumeSubscription(
             @PathVariable String subscriptionId) {
         
@@ -107,7 +108,7 @@ public class SubscriptionController {
     }
 
     @PutMapping("/{subscriptionId}/cancel")
-    @PreAuthorize("hasAuthority('USER_PROFILE_UPDATE')")
+    @RequirePermission(Permission.USER_PROFILE_UPDATE)
     public ResponseEntity<ApiResponse<SubscriptionResponse>> cancelSubscription(
             @PathVariable String subscriptionId) {
         
@@ -122,7 +123,7 @@ public class SubscriptionController {
     }
 
     @PutMapping("/{subscriptionId}/activate")
-    @PreAuthorize("hasAuthority('USER_PROFILE_UPDATE')")
+    @RequirePermission(Permission.USER_PROFILE_UPDATE)
     public ResponseEntity<ApiResponse<SubscriptionResponse>> activateSubscription(
             @PathVariable String subscriptionId) {
         
@@ -137,7 +138,7 @@ public class SubscriptionController {
     }
 
     @PutMapping("/{subscriptionId}/status")
-    @PreAuthorize("hasAuthority('USER_PROFILE_UPDATE')")
+    @RequirePermission(Permission.USER_PROFILE_UPDATE)
     public ResponseEntity<ApiResponse<SubscriptionResponse>> updateSubscriptionStatus(
             @PathVariable String subscriptionId,
             @RequestParam String status) {
@@ -153,7 +154,7 @@ public class SubscriptionController {
     }
 
     @DeleteMapping("/{subscriptionId}")
-    @PreAuthorize("hasAuthority('USER_PROFILE_UPDATE')")
+    @RequirePermission(Permission.USER_PROFILE_UPDATE)
     public ResponseEntity<ApiResponse<String>> deleteSubscription(
             @PathVariable String subscriptionId) {
         
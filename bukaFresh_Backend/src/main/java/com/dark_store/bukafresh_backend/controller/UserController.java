@@ -2,13 +2,16 @@ package com.dark_store.bukafresh_backend.controller;
 
 
 
+import com.dark_store.bukafresh_backend.config.RequirePermission;
 import com.dark_store.bukafresh_backend.dto.request.CheckoutRegisterRequest;
 import com.dark_store.bukafresh_backend.dto.request.CreateUserRequest;
 import com.dark_store.bukafresh_backend.dto.request.LoginRequest;
+import com.dark_store.bukafresh_backend.dto.request.RefreshTokenRequest;
 import com.dark_store.bukafresh_backend.dto.response.ApiResponse;
 import com.dark_store.bukafresh_backend.dto.response.CheckoutRegisterResponse;
 import com.dark_store.bukafresh_backend.dto.response.LoginResponse;
 import com.dark_store.bukafresh_backend.dto.response.ProfileResponse;
+import com.dark_store.bukafresh_backend.model.Permission;
 import com.dark_store.bukafresh_backend.service.UserService;
 import com.dark_store.bukafresh_backend.util.CurrentUserUtil;
 import jakarta.validation.Valid;
@@ -16,7 +19,6 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
@@ -82,7 +84,7 @@ public class UserController {
     }
 
     @GetMapping("/me")
-    @PreAuthorize("hasAuthority('USER_PROFILE_READ')")
+    @RequirePermission(Permission.USER_PROFILE_READ)
     public ResponseEntity<ApiResponse<ProfileResponse>> getCurrentUserProfile() {
         String userId = CurrentUserUtil.getCurrentUserId();
         log.info("Fetching profile for userId: {}", userId);
@@ -92,6 +94,27 @@ public class UserController {
         ));
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<ApiResponse<LoginResponse>> refresh(@RequestBody @Valid RefreshTokenRequest request) {
+        return ResponseEntity.ok(ApiResponse.success(
+                "Token refreshed.",
+                userService.refresh(request.refreshToken())
+        ));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse<Void>> logout(@RequestHeader("Authorization") String authHeader,
+                                                    @RequestBody(required = false) RefreshTokenRequest request) {
+        userService.logout(authHeader.substring(7), request == null ? null : request.refreshToken());
+        return ResponseEntity.ok(ApiResponse.success("Logged out successfully."));
+    }
+
+    @PostMapping("/logout-all")
+    public ResponseEntity<ApiResponse<Void>> logoutAllSessions() {
+        userService.logoutAllSessions(CurrentUserUtil.getCurrentUserId());
+        return ResponseEntity.ok(ApiResponse.success("Logged out of all sessions."));
+    }
+
 //    @GetMapping("/{id}")
 //    public ResponseEntity<ApiResponse<UserResponse>> getUser(@PathVariable("id") String id) {
 //        return ResponseEntity.ok(ApiResponse.success(
@@ -0,0 +1,14 @@
+package com.dark_store.bukafresh_backend.dto.event;
+
+import java.math.BigDecimal;
+
+public record PaymentFailedEvent(
+        String eventId,
+        String paymentId,
+        String paymentReference,
+        String subscriptionId,
+        String userId,
+        BigDecimal amount,
+        String failureReason
+) {
+}
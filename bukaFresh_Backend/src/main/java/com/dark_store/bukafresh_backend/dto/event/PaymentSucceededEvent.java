@@ -0,0 +1,15 @@
+package com.dark_store.bukafresh_backend.dto.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record PaymentSucceededEvent(
+        String eventId,
+        String paymentId,
+        String paymentReference,
+        String subscriptionId,
+        String userId,
+        BigDecimal amount,
+        LocalDateTime paidAt
+) {
+}
@@ -0,0 +1,9 @@
+package com.dark_store.bukafresh_backend.dto.event;
+
+public record SubscriptionActivatedEvent(
+        String eventId,
+        String subscriptionId,
+        String paymentId,
+        String userId
+) {
+}
@@ -0,0 +1,52 @@
+package com.dark_store.bukafresh_backend.dto.onePipe.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueryTransactionRequest {
+
+    @NotBlank
+    private String request_ref;
+
+    @NotBlank
+    private String request_type;
+
+    @Valid
+    @NotNull
+    private Auth auth;
+
+    @Valid
+    @NotNull
+    private Transaction transaction;
+
+
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Auth {
+
+        @NotBlank
+        private String auth_provider;
+    }
+
+
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Transaction {
+
+        @NotBlank
+        private String transaction_ref;
+    }
+}
@@ -0,0 +1,8 @@
+package com.dark_store.bukafresh_backend.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshTokenRequest(
+    @NotBlank
+    String refreshToken
+){}
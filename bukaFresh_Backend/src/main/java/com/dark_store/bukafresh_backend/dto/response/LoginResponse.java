@@ -10,12 +10,14 @@ public class LoginResponse {
     private String userId;
     private String email;
     private String token;
+    private String refreshToken;
 
-    public static LoginResponse fromEntity(User user, String token) {
+    public static LoginResponse fromEntity(User user, String token, String refreshToken) {
         return LoginResponse.builder()
                 .userId(user.getId())
                 .email(user.getEmail())
                 .token(token)
+                .refreshToken(refreshToken)
                 .build();
     }
 }
@@ -0,0 +1,18 @@
+package com.dark_store.bukafresh_backend.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class SettlementReconciliationResponse {
+    private String settlementFile;
+    private String reportFile;
+    private long rowsRead;
+    private long matched;
+    private long missing;
+    private long amountMismatches;
+    private long statusMismatches;
+    private long duplicates;
+    private long malformedRows;
+}
@@ -0,0 +1,7 @@
+package com.dark_store.bukafresh_backend.exception;
+
+public class InvalidRefreshTokenException extends RuntimeException {
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
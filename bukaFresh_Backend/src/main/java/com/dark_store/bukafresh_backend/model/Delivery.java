@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -22,6 +23,8 @@ public class Delivery {
     private String userId;
     private String subscriptionId;
     private String orderId;
+    // One delivery per payment, so a redelivered PaymentSucceeded event cannot create a second one
+    @Indexed(unique = true, sparse = true)
     private String paymentId;
     
     // Delivery scheduling
@@ -0,0 +1,32 @@
+package com.dark_store.bukafresh_backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "email_verification_tokens")
+public class EmailVerificationToken {
+
+    // One outstanding token per user; issuing a new one replaces the old
+    @Id
+    private String userId;
+
+    // Base64url HMAC-SHA256 of "userId.token" - the token itself is never stored
+    private String tokenDigest;
+
+    // TTL index: MongoDB purges the document once this instant has passed
+    @Indexed(expireAfter = "0s")
+    private Instant expiresAt;
+
+    private Instant createdAt;
+}
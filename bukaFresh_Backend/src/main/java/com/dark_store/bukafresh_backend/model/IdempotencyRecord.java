@@ -0,0 +1,50 @@
+package com.dark_store.bukafresh_backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String COMPLETED = "COMPLETED";
+
+    // SHA-256 of user, method, path and the client's Idempotency-Key
+    @Id
+    private String id;
+
+    private String userId;
+    private String method;
+    private String path;
+
+    // SHA-256 of the request body; a reused key with a different body is rejected
+    private String requestHash;
+
+    // IN_PROGRESS, COMPLETED
+    private String state;
+
+    // Set while a request holds the key; once lockedUntil passes, a retry may take the record over
+    // from a holder that crashed, and lockId keeps the old holder from completing or releasing it
+    private String lockId;
+    private Instant lockedUntil;
+
+    private Integer responseStatus;
+    private String responseContentType;
+    private String responseBody;
+
+    private Instant createdAt;
+
+    @Indexed(expireAfter = "0s")
+    private Instant expiresAt;
+}
@@ -0,0 +1,34 @@
+package com.dark_store.bukafresh_backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Resume position of a long-running sweep, so a restart continues after the last finished batch.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "job_checkpoints")
+public class JobCheckpoint {
+
+    // Job name
+    @Id
+    private String id;
+
+    // Sort key and id of the last document whose batch completed
+    private LocalDateTime lastSortValue;
+    private String lastDocumentId;
+
+    private long processed;
+    private Instant startedAt;
+    private Instant updatedAt;
+}
@@ -0,0 +1,34 @@
+package com.dark_store.bukafresh_backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Lease on one partition of a cluster job. Whoever holds an unexpired lease runs the partition;
+ * once it lapses any node may take it over.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "job_locks")
+public class JobLock {
+
+    // "<job>:<partition>"
+    @Id
+    private String id;
+
+    private String owner;
+    private Instant leaseExpiresAt;
+    private Instant acquiredAt;
+
+    // Run the partition last finished, so other nodes do not repeat it within the same run
+    private Long lastCompletedRun;
+    private Instant completedAt;
+}
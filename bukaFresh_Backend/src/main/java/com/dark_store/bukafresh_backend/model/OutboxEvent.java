@@ -0,0 +1,26 @@
+package com.dark_store.bukafresh_backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An event waiting to be published, embedded in the document whose change produced it so the
+ * change and the event are written by the same single-document update.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    public static final String PAYMENT_SUCCEEDED = "PaymentSucceeded";
+    public static final String PAYMENT_FAILED = "PaymentFailed";
+
+    private String eventId;
+    private String type;
+    private LocalDateTime createdAt;
+}
@@ -6,17 +6,21 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "payments")
+// Stale PENDING sweep in PaymentReconciliationServiceImpl
+@CompoundIndex(name = "status_created_at", def = "{'status': 1, 'createdAt': 1, '_id': 1}")
 public class Payment {
     @Id
     private String id;
@@ -35,11 +39,15 @@ public class Payment {
 
     @Indexed(unique = true)
     private String idempotencyKey;
+    // Set on dunning attempts: id of the failed payment being retried
+    private String retryOf;
 
 
     // Payment status and tracking
     private String status; // PENDING, PROCESSING, PAID, FAILED
+    @Indexed
     private String paymentReference;
+    @Indexed(sparse = true)
     private String onePipeReference;
     private String failureReason;
     
@@ -50,4 +58,12 @@ public class Payment {
     
     // OnePipe response data
     private String onePipeResponse;
+
+    // Transactional outbox, pushed by the same findAndModify as the status change
+    private List<OutboxEvent> outbox;
+    // Only set while outbox has unpublished events, so the sparse index holds just those payments
+    @Indexed(sparse = true)
+    private Boolean outboxPending;
+    private String outboxClaimId;
+    private LocalDateTime outboxLeaseExpiresAt;
 }
\ No newline at end of file
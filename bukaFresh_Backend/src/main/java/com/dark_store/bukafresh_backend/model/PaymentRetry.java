@@ -0,0 +1,55 @@
+package com.dark_store.bukafresh_backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Dunning state for one failed recurring charge: which retry is next and when.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "payment_retries")
+@CompoundIndex(name = "state_next_attempt", def = "{'state': 1, 'nextAttemptAt': 1}")
+public class PaymentRetry {
+
+    public static final String SCHEDULED = "SCHEDULED";
+    // A retry payment was created and debited; waiting for its PaymentSucceeded/PaymentFailed event
+    public static final String AWAITING_RESULT = "AWAITING_RESULT";
+    public static final String RECOVERED = "RECOVERED";
+    public static final String EXHAUSTED = "EXHAUSTED";
+
+    // Id of the payment that originally failed
+    @Id
+    private String id;
+
+    private String subscriptionId;
+    private String userId;
+    // Same bucket as the subscription, so dunning partitions line up with billing's
+    private Integer userBucket;
+    private BigDecimal amount;
+
+    private String state;
+    // Retries made so far
+    private int attempts;
+    private Instant firstFailedAt;
+    private Instant nextAttemptAt;
+    private Instant lastAttemptAt;
+    private String currentPaymentId;
+    private String lastFailureReason;
+    private Instant completedAt;
+
+    // Old finished retries are dropped after dunning.retention
+    @Indexed(expireAfter = "0s")
+    private Instant purgeAt;
+}
@@ -1,9 +1,86 @@
 package com.dark_store.bukafresh_backend.model;
 
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 public enum Permission {
-    USER_PROFILE_READ,
-    USER_PROFILE_UPDATE,
-    ORDER_CREATE,
-    ORDER_READ,
-    ADMIN_VIEW_ALL
+    // Bit positions are part of the token format ("perm" claim) - never reorder or reuse them
+    USER_PROFILE_READ(0),
+    USER_PROFILE_UPDATE(1),
+    ORDER_CREATE(2),
+    ORDER_READ(3),
+    ADMIN_VIEW_ALL(4);
+
+    private static final Permission[] VALUES = values();
+    private static final Map<Long, List<GrantedAuthority>> AUTHORITIES_BY_MASK = new ConcurrentHashMap<>();
+
+    private final long bit;
+    private final GrantedAuthority authority;
+
+    Permission(int position) {
+        this.bit = 1L << position;
+        this.authority = new SimpleGrantedAuthority(name());
+    }
+
+    public long bit() {
+        return bit;
+    }
+
+    public GrantedAuthority authority() {
+        return authority;
+    }
+
+    public static long maskOf(Collection<Permission> permissions) {
+        long mask = 0L;
+        for (Permission permission : permissions) {
+            mask |= permission.bit;
+        }
+        return mask;
+    }
+
+    // Used for tokens issued before the "perm" claim existed
+    public static long maskOfNames(Collection<String> names) {
+        long mask = 0L;
+        for (String name : names) {
+            for (Permission permission : VALUES) {
+                if (permission.name().equals(name)) {
+                    mask |= permission.bit;
+                    break;
+                }
+            }
+        }
+        return mask;
+    }
+
+    public static Set<Permission> fromMask(long mask) {
+        EnumSet<Permission> permissions = EnumSet.noneOf(Permission.class);
+        for (Permission permission : VALUES) {
+            if ((mask & permission.bit) != 0) {
+                permissions.add(permission);
+            }
+        }
+        return Collections.unmodifiableSet(permissions);
+    }
+
+    /**
+     * Immutable authority list for a mask. Lists are built once per distinct mask (in practice one per role)
+     * and shared by every request afterwards.
+     */
+    public static List<GrantedAuthority> authoritiesOf(long mask) {
+        return AUTHORITIES_BY_MASK.computeIfAbsent(mask, m -> fromMask(m).stream()
+                .map(Permission::authority)
+                .toList());
+    }
+
+    public static boolean grants(long grantedMask, long requiredMask) {
+        return (grantedMask & requiredMask) == requiredMask;
+    }
 }
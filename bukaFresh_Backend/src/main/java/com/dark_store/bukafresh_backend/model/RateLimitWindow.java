@@ -0,0 +1,28 @@
+package com.dark_store.bukafresh_backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "rate_limit_windows")
+public class RateLimitWindow {
+
+    // "<key>:<windowIndex>"
+    @Id
+    private String id;
+
+    private long count;
+
+    @Indexed(expireAfter = "0s")
+    private Instant expiresAt;
+}
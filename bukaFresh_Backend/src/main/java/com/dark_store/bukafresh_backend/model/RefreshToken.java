@@ -0,0 +1,44 @@
+package com.dark_store.bukafresh_backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "refresh_tokens")
+public class RefreshToken {
+
+    // SHA-256 of the opaque token; the token itself is never stored
+    @Id
+    private String id;
+
+    @Indexed
+    private String userId;
+
+    // Every token produced by rotating the same login shares a family
+    @Indexed
+    private String familyId;
+
+    // Set when the token is exchanged; presenting it again after the reuse grace is treated as theft
+    private Instant rotatedAt;
+
+    // Digest of the token this one was exchanged for; only that exchange is eligible for the grace window
+    private String successorId;
+
+    @Builder.Default
+    private Boolean revoked = false;
+
+    private Instant createdAt;
+
+    @Indexed(expireAfter = "0s")
+    private Instant expiresAt;
+}
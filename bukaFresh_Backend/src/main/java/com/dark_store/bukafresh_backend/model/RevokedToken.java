@@ -0,0 +1,33 @@
+package com.dark_store.bukafresh_backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "revoked_tokens")
+public class RevokedToken {
+
+    // JWT "jti"
+    @Id
+    private String id;
+
+    private String userId;
+
+    // Nodes poll for entries newer than their last refresh
+    @Indexed
+    private Instant revokedAt;
+
+    // The token's own exp; once it has passed the entry is useless and MongoDB drops it
+    @Indexed(expireAfter = "0s")
+    private Instant expiresAt;
+}
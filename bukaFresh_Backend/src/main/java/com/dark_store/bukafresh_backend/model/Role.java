@@ -1,15 +1,20 @@
 package com.dark_store.bukafresh_backend.model;
 
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
 
 public enum Role {
 
-    USER(Set.of(
+    USER(EnumSet.of(
             Permission.USER_PROFILE_READ,
             Permission.USER_PROFILE_UPDATE
     )),
 
-    ADMIN(Set.of(
+    ADMIN(EnumSet.of(
             Permission.USER_PROFILE_READ,
             Permission.USER_PROFILE_UPDATE,
             Permission.ORDER_CREATE,
@@ -18,13 +23,22 @@ public enum Role {
     ));
 
     private final Set<Permission> permissions;
+    private final long permissionMask;
 
-    Role(Set<Permission> permissions) {
-        this.permissions = permissions;
+    Role(EnumSet<Permission> permissions) {
+        this.permissions = Collections.unmodifiableSet(permissions);
+        this.permissionMask = Permission.maskOf(permissions);
     }
 
     public Set<Permission> permissions() {
         return permissions;
     }
-}
 
+    public long permissionMask() {
+        return permissionMask;
+    }
+
+    public List<GrantedAuthority> permissionAuthorities() {
+        return Permission.authoritiesOf(permissionMask);
+    }
+}
@@ -0,0 +1,34 @@
+package com.dark_store.bukafresh_backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A reference already seen in one settlement run, so a repeat in a later chunk is caught by the
+ * unique _id instead of state held in memory.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "settlement_references")
+public class SettlementReference {
+
+    // <runId>:<reference>
+    @Id
+    private String id;
+
+    @Indexed
+    private String runId;
+
+    // Backstop for a run that dies before removing its references
+    @Indexed(expireAfter = "1d")
+    private Instant createdAt;
+}
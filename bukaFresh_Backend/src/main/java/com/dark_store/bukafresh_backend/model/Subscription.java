@@ -3,23 +3,40 @@ package com.dark_store.bukafresh_backend.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @Document(collection = "subscriptions")
+// Due-subscription sweep in BillingServiceImpl, one billing window at a time
+@CompoundIndex(name = "status_billing_window", def = "{'status': 1, 'nextBillingDate': 1, 'billingSlot': 1, '_id': 1}")
+// At most one open subscription per user; createSubscription relies on it instead of a read
+@CompoundIndex(name = "user_open_subscription", def = "{'userId': 1}", unique = true,
+        partialFilter = "{'status': {'$in': ['ACTIVE', 'PENDING', 'INACTIVE']}}")
 public class Subscription {
+
+    // Fixed bucket count for userBucket; job partitions take it modulo their own count
+    public static final int USER_BUCKETS = 1024;
+    // billingSlot is a minute of the day
+    public static final int BILLING_SLOTS = 1440;
+
     @Id
     private String id;
     private String userId;
+    // StableHash of userId, so partitioned jobs can select their share with a server-side $mod
+    private Integer userBucket;
     private String tier;
     private String status;
     private BigDecimal price;
     private String billingCycle;
     private LocalDate nextBillingDate;
+    // StableHash of the id; the minute of the day from which this subscription is billed
+    private Integer billingSlot;
     private String reasonForCancellation;
     private String mandateId;
     private LocalDateTime startedAt;
@@ -31,6 +48,12 @@ public class Subscription {
     private LocalDate nextDeliveryDate;
     private Integer deliveriesThisMonth = 0;
     private Integer maxDeliveriesPerMonth;
+    // Month (yyyy-MM) that deliveriesThisMonth counts; older values are reset by the quota job
+    private String quotaMonth;
+    // Payment whose PaymentSucceeded event activated this subscription; makes redelivery a no-op
+    private String activatedByPaymentId;
+    // Append-only; see SubscriptionTransition
+    private List<SubscriptionTransition> transitions;
 
     public void incrementDeliveriesThisMonth() {
         this.deliveriesThisMonth = (this.deliveriesThisMonth == null) ? 1 : this.deliveriesThisMonth + 1;
@@ -0,0 +1,33 @@
+package com.dark_store.bukafresh_backend.model;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Subscription statuses and the transitions allowed between them. The status is stored as a plain
+ * string; every change goes through a findAndModify conditioned on {@link #sourcesOf}.
+ */
+public final class SubscriptionStatus {
+
+    public static final String PENDING = "PENDING";
+    public static final String ACTIVE = "ACTIVE";
+    public static final String PAUSED = "PAUSED";
+    public static final String INACTIVE = "INACTIVE";
+    public static final String CANCELED = "CANCELED";
+
+    // Target status -> statuses it may be entered from; PENDING is only ever the initial status
+    private static final Map<String, Set<String>> SOURCES = Map.of(
+            ACTIVE, Set.of(PENDING, PAUSED, INACTIVE),
+            PAUSED, Set.of(ACTIVE),
+            INACTIVE, Set.of(ACTIVE, PAUSED),
+            CANCELED, Set.of(PENDING, ACTIVE, PAUSED, INACTIVE)
+    );
+
+    private SubscriptionStatus() {
+    }
+
+    /** Statuses from which {@code target} may be entered; empty if it cannot be entered at all. */
+    public static Set<String> sourcesOf(String target) {
+        return SOURCES.getOrDefault(target, Set.of());
+    }
+}
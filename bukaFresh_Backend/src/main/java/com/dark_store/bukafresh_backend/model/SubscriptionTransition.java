@@ -0,0 +1,23 @@
+package com.dark_store.bukafresh_backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry in a subscription's append-only status history, pushed by the same update that
+ * changes the status. The status moved from is the previous entry's status.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriptionTransition {
+
+    private String status;
+    private String reason;
+    private LocalDateTime at;
+}
@@ -46,6 +46,10 @@ public class User implements UserDetails {
 
     private String profileId;
 
+    // Bumped to invalidate every token issued before; carried in the JWT "ver" claim
+    @Builder.Default
+    private Long tokenVersion = 0L;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority("ROLE_" + role));
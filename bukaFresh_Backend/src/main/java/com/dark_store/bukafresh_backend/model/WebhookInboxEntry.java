@@ -0,0 +1,59 @@
+package com.dark_store.bukafresh_backend.model;
+
+import com.dark_store.bukafresh_backend.dto.onePipe.response.OnePipeWebhookPayload;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "webhook_inbox")
+@CompoundIndex(name = "state_next_attempt", def = "{'state': 1, 'nextAttemptAt': 1}")
+public class WebhookInboxEntry {
+
+    public static final String PENDING = "PENDING";
+    public static final String PROCESSING = "PROCESSING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    private String id;
+
+    private String source;
+
+    @Indexed
+    private String paymentReference;
+
+    private OnePipeWebhookPayload payload;
+
+    // (transaction_ref, status, payload hash), see WebhookDedupService
+    private String dedupKey;
+
+    // PENDING, PROCESSING, DONE, FAILED
+    private String state;
+
+    private int attempts;
+    private Instant nextAttemptAt;
+
+    // Set while a worker holds the entry; an expired lease makes it claimable again
+    @Indexed(sparse = true)
+    private String claimId;
+    private Instant leaseExpiresAt;
+
+    private String lastError;
+    private Instant receivedAt;
+    private Instant processedAt;
+
+    // Only set once the entry reaches DONE, so processed entries age out and failures stay
+    @Indexed(expireAfter = "0s")
+    private Instant purgeAt;
+}
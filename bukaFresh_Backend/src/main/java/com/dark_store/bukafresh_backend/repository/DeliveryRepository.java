@@ -22,6 +22,8 @@ public interface DeliveryRepository extends MongoRepository<Delivery, String> {
     List<Delivery> findByUserIdAndStatusIn(String userId, List<String> statuses);
     
     Optional<Delivery> findByTrackingNumber(String trackingNumber);
+
+    Optional<Delivery> findByPaymentId(String paymentId);
     
     List<Delivery> findByScheduledDateBetween(LocalDateTime start, LocalDateTime end);
     
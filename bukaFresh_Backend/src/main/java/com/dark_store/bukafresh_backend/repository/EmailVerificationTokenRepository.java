@@ -0,0 +1,7 @@
+package com.dark_store.bukafresh_backend.repository;
+
+import com.dark_store.bukafresh_backend.model.EmailVerificationToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface EmailVerificationTokenRepository extends MongoRepository<EmailVerificationToken, String> {
+}
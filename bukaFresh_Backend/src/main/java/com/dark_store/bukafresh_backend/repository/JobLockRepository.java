@@ -0,0 +1,7 @@
+package com.dark_store.bukafresh_backend.repository;
+
+import com.dark_store.bukafresh_backend.model.JobLock;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface JobLockRepository extends MongoRepository<JobLock, String> {
+}
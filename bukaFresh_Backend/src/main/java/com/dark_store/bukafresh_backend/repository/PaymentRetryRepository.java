@@ -0,0 +1,7 @@
+package com.dark_store.bukafresh_backend.repository;
+
+import com.dark_store.bukafresh_backend.model.PaymentRetry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface PaymentRetryRepository extends MongoRepository<PaymentRetry, String> {
+}
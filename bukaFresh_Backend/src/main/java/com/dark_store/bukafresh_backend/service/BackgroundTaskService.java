@@ -0,0 +1,13 @@
+package com.dark_store.bukafresh_backend.service;
+
+import reactor.core.publisher.Mono;
+
+public interface BackgroundTaskService {
+
+    /**
+     * Runs the task in the background under the category's concurrency limit, queueing it if the
+     * limit is reached. When the queue is full the category's overflow policy applies; with
+     * {@code REJECT} this throws {@link com.dark_store.bukafresh_backend.exception.ServiceBusyException}.
+     */
+    void submit(String category, String description, Mono<?> task);
+}
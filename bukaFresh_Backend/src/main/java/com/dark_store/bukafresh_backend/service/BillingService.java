@@ -0,0 +1,13 @@
+package com.dark_store.bukafresh_backend.service;
+
+import java.util.function.BooleanSupplier;
+
+public interface BillingService {
+
+    /**
+     * Charges every ACTIVE subscription in the given partition of user buckets whose next billing
+     * date is today or earlier and moves its billing date forward. Returns the number of
+     * subscriptions handled in this run. Stops between batches once {@code leaseHeld} is false.
+     */
+    int billDueSubscriptions(int partition, int partitions, BooleanSupplier leaseHeld);
+}
@@ -0,0 +1,21 @@
+package com.dark_store.bukafresh_backend.service;
+
+import java.util.function.BooleanSupplier;
+
+public interface DunningService {
+
+    /**
+     * Schedules retries when a recurring charge fails, or records the outcome when a retry
+     * attempt fails. Safe to call more than once for the same payment.
+     */
+    void onPaymentFailed(String paymentId);
+
+    /** Closes the retry as recovered if the payment was a dunning attempt. */
+    void onPaymentSucceeded(String paymentId);
+
+    /**
+     * Debits the retries due now in one partition. Returns the number of retries picked up. Stops
+     * between batches once {@code leaseHeld} is false.
+     */
+    int processDueRetries(int partition, int partitions, BooleanSupplier leaseHeld);
+}
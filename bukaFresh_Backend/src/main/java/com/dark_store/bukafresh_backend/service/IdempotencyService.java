@@ -0,0 +1,26 @@
+package com.dark_store.bukafresh_backend.service;
+
+public interface IdempotencyService {
+
+    enum Status {
+        // First request with this key; run it and call complete() or abandon()
+        ACQUIRED,
+        // Already completed; send the stored snapshot
+        REPLAY,
+        // Still running elsewhere, and its lease has not expired
+        IN_PROGRESS,
+        // Key reused with a different request body
+        MISMATCH
+    }
+
+    record Snapshot(int status, String contentType, String body) {}
+
+    // lockId is only set on ACQUIRED and must be passed back to complete() or abandon()
+    record Claim(Status status, String recordId, String lockId, Snapshot snapshot) {}
+
+    Claim begin(String userId, String method, String path, String idempotencyKey, String requestHash);
+
+    void complete(String recordId, String lockId, String requestHash, Snapshot snapshot);
+
+    void abandon(String recordId, String lockId);
+}
@@ -0,0 +1,23 @@
+package com.dark_store.bukafresh_backend.service;
+
+import java.time.Duration;
+
+public interface JobLockService {
+
+    /**
+     * Takes the lease on {@code lockId} unless another node holds an unexpired one or the lock
+     * already completed {@code run}.
+     */
+    boolean tryAcquire(String lockId, long run, Duration lease);
+
+    /** Extends a lease this node holds. Returns false if it was lost to another node. */
+    boolean renew(String lockId, Duration lease);
+
+    /** Records {@code run} as finished and gives the lease up. */
+    void complete(String lockId, long run);
+
+    /** Gives the lease up without completing, so another node can retry straight away. */
+    void release(String lockId);
+
+    String nodeId();
+}
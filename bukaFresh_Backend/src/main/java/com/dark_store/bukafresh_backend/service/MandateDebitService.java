@@ -0,0 +1,21 @@
+package com.dark_store.bukafresh_backend.service;
+
+import com.dark_store.bukafresh_backend.model.Payment;
+import reactor.core.publisher.Mono;
+
+public interface MandateDebitService {
+
+    String PAID = "paid";
+    String DECLINED = "declined";
+    String SUBMITTED = "submitted";
+    String UNKNOWN = "unknown";
+
+    /**
+     * Debits a PENDING payment against a mandate under the shared debit rate limit and applies a
+     * final status OnePipe returns straight away. Completes with {@link #PAID}, {@link #DECLINED}
+     * or {@link #SUBMITTED} (outcome arrives by webhook). Does not error: a debit that provably never
+     * reached OnePipe fails the payment and is declined; any other error completes with
+     * {@link #UNKNOWN} and leaves the payment PENDING for reconciliation.
+     */
+    Mono<String> debit(String userId, String mandateId, Payment payment);
+}
@@ -12,9 +12,16 @@ import java.util.concurrent.CompletableFuture;
 
 public interface OnePipeService {
 
+    // request_type values; a status query has to name the one the transaction was sent with
+    String SEND_INVOICE = "send invoice";
+    String COLLECT = "collect";
 
     Mono<OnePipeResponse> sendInvoice(String userId, String paymentReference, BigDecimal amount, CreatePaymentMandateRequest request);
 
+    Mono<OnePipeResponse> queryTransaction(String paymentReference, String requestType);
+
+    Mono<OnePipeResponse> collect(String userId, String mandateId, String paymentReference, BigDecimal amount);
+
 //    @Async
 //    CompletableFuture<String> createMandate(String userId, String tier, BigDecimal amount);
 //
@@ -0,0 +1,10 @@
+package com.dark_store.bukafresh_backend.service;
+
+public interface PasswordHashingService {
+
+    String hash(String rawValue);
+
+    boolean matches(String rawValue, String encodedValue);
+
+    boolean needsRehash(String encodedValue);
+}
@@ -0,0 +1,10 @@
+package com.dark_store.bukafresh_backend.service;
+
+public interface PaymentOutboxService {
+
+    /**
+     * Claims one batch of payments with unpublished outbox events, publishes them and clears the
+     * events the broker acknowledged. Returns the number of payments claimed.
+     */
+    int relayBatch();
+}
@@ -0,0 +1,13 @@
+package com.dark_store.bukafresh_backend.service;
+
+import java.util.function.BooleanSupplier;
+
+public interface PaymentReconciliationService {
+
+    /**
+     * Queries OnePipe for payments that are still PENDING after the stale threshold and applies the
+     * result. Returns the number of payments checked in this run. Stops between batches once
+     * {@code leaseHeld} is false.
+     */
+    int reconcileStalePayments(BooleanSupplier leaseHeld);
+}
@@ -3,15 +3,40 @@ package com.dark_store.bukafresh_backend.service;
 import com.dark_store.bukafresh_backend.dto.request.CreatePaymentMandateRequest;
 import com.dark_store.bukafresh_backend.dto.request.ProcessPaymentRequest;
 import com.dark_store.bukafresh_backend.dto.response.PaymentResponse;
+import com.dark_store.bukafresh_backend.model.Payment;
+import com.dark_store.bukafresh_backend.model.Subscription;
+
+import java.time.LocalDate;
 
 import java.util.List;
 
 public interface PaymentService {
 
+    // Payment.idempotencyKey namespaces; client keys are stored under client:<userId>: so they
+    // can never take a key the billing run or dunning will need
+    String CYCLE_KEY_PREFIX = "billing:";
+    String RETRY_KEY_PREFIX = "dunning:";
+    String CLIENT_KEY_PREFIX = "client:";
+
     PaymentResponse processPayment(CreatePaymentMandateRequest request, String idempotencyKey);
 
     PaymentResponse getPaymentById(String paymentId);
     List<PaymentResponse> getUserPayments(String userId);
     List<PaymentResponse> getSubscriptionPayments(String subscriptionId);
     PaymentResponse handleOnePipeCallback(String onePipeReference, String status, String response);
+
+    /**
+     * Creates the PENDING payment for one billing cycle of a subscription, or returns the one a
+     * previous run already created for that cycle.
+     */
+    CyclePayment createCyclePayment(Subscription subscription, LocalDate billingDate);
+
+    /**
+     * Creates the PENDING payment for dunning attempt {@code attempt} of a failed payment, or
+     * returns the one already created for that attempt.
+     */
+    CyclePayment createRetryPayment(Payment failed, int attempt);
+
+    record CyclePayment(Payment payment, boolean created) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.dark_store.bukafresh_backend.service;
+
+import java.time.Duration;
+
+public interface RateLimiter {
+
+    /**
+     * Takes one permit from the bucket for {@code key}.
+     *
+     * @return 0 if the request is allowed, otherwise the number of milliseconds until a permit frees up
+     */
+    long tryAcquire(String key, int capacity, Duration period);
+}
@@ -0,0 +1,21 @@
+package com.dark_store.bukafresh_backend.service;
+
+public interface RefreshTokenService {
+
+    /**
+     * Starts a new token family for the user and returns the opaque refresh token.
+     */
+    String issue(String userId);
+
+    /**
+     * Exchanges a refresh token for a new one in the same family. Presenting a token that was
+     * already rotated revokes the whole family.
+     */
+    RotatedRefreshToken rotate(String refreshToken);
+
+    void revokeFamily(String refreshToken);
+
+    void revokeAllForUser(String userId);
+
+    record RotatedRefreshToken(String userId, String refreshToken) {}
+}
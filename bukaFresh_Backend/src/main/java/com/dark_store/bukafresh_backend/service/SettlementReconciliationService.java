@@ -0,0 +1,12 @@
+package com.dark_store.bukafresh_backend.service;
+
+import com.dark_store.bukafresh_backend.dto.response.SettlementReconciliationResponse;
+
+public interface SettlementReconciliationService {
+
+    /**
+     * Joins a settlement CSV from the settlement inbox against {@code payments} and writes the
+     * discrepancies to a report file alongside it.
+     */
+    SettlementReconciliationResponse reconcile(String fileName);
+}
@@ -14,7 +14,30 @@ public interface SubscriptionService {
     SubscriptionResponse resumeSubscription(String subscriptionId);
     SubscriptionResponse cancelSubscription(String subscriptionId);
     SubscriptionResponse activateSubscription(String subscriptionId);
+
+    /**
+     * Activates the subscription for a successful payment. Returns true if this payment activated
+     * it, now or on an earlier delivery of the same event, and false if it was already active.
+     */
+    boolean activateFromPayment(String subscriptionId, String paymentId);
+
+    /**
+     * Moves an ACTIVE subscription to {@code status} after its payment could not be recovered.
+     * Returns false if it was no longer ACTIVE.
+     */
+    boolean suspendForNonPayment(String subscriptionId, String status);
+
+    /**
+     * Takes one delivery from this month's quota in a single guarded update. Returns false if the
+     * quota is used up or the subscription has none.
+     */
+    boolean consumeDeliveryQuota(String subscriptionId);
+
+    /** Gives back a delivery taken by consumeDeliveryQuota that was not created after all. */
+    void releaseDeliveryQuota(String subscriptionId);
+
+    /** Resets delivery counters left on an earlier month in one partition. Returns the number reset. */
+    long resetDeliveryQuotas(int partition, int partitions);
     List<SubscriptionResponse> getAllUserSubscriptions(String userId);
-    void processDueSubscriptions();
     void deleteSubscription(String subscriptionId);
 }
@@ -0,0 +1,10 @@
+package com.dark_store.bukafresh_backend.service;
+
+import io.jsonwebtoken.Claims;
+
+public interface TokenRevocationService {
+
+    void revoke(Claims claims);
+
+    boolean isRevoked(String jti);
+}
@@ -0,0 +1,8 @@
+package com.dark_store.bukafresh_backend.service;
+
+public interface TokenVersionService {
+
+    boolean isCurrent(String userId, long tokenVersion);
+
+    long revokeAllTokens(String userId);
+}
@@ -19,4 +19,10 @@ public interface UserService {
     void resendVerificationEmail(String email);
 
     ProfileResponse getCurrentUserProfile(String userId);
+
+    LoginResponse refresh(String refreshToken);
+
+    void logout(String token, String refreshToken);
+
+    void logoutAllSessions(String userId);
 }
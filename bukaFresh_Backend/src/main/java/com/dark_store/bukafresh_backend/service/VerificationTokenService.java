@@ -0,0 +1,8 @@
+package com.dark_store.bukafresh_backend.service;
+
+public interface VerificationTokenService {
+
+    String issue(String userId);
+
+    void verify(String userId, String token);
+}
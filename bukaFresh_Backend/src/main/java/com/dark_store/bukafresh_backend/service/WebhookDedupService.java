@@ -0,0 +1,25 @@
+package com.dark_store.bukafresh_backend.service;
+
+import com.dark_store.bukafresh_backend.dto.onePipe.response.OnePipeWebhookPayload;
+
+public interface WebhookDedupService {
+
+    enum Outcome { ACCEPTED, PROCESSED }
+
+    /**
+     * (transaction_ref, status, payload hash) identity of a callback.
+     */
+    String keyOf(OnePipeWebhookPayload payload);
+
+    /**
+     * Records the callback as accepted if it has not been seen within the window. Returns
+     * {@code null} for a first delivery, otherwise the outcome recorded for the earlier one.
+     */
+    Outcome acceptIfFirst(String key);
+
+    void forget(String key);
+
+    void markProcessed(String key);
+
+    boolean isProcessed(String key);
+}
@@ -0,0 +1,25 @@
+package com.dark_store.bukafresh_backend.service;
+
+import com.dark_store.bukafresh_backend.dto.onePipe.response.OnePipeWebhookPayload;
+import com.dark_store.bukafresh_backend.model.WebhookInboxEntry;
+
+import java.util.List;
+
+public interface WebhookInboxService {
+
+    /**
+     * Persists the callback with a single insert. Once this returns the webhook can be acknowledged.
+     */
+    void enqueue(OnePipeWebhookPayload payload, String dedupKey);
+
+    List<WebhookInboxEntry> claimBatch(int limit);
+
+    void markDone(WebhookInboxEntry entry);
+
+    void markFailed(WebhookInboxEntry entry, Exception error);
+
+    /**
+     * Hands a claimed entry back without counting the attempt, e.g. when no worker could take it.
+     */
+    void release(WebhookInboxEntry entry);
+}
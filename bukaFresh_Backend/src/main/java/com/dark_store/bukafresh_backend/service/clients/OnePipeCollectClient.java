@@ -0,0 +1,80 @@
+package com.dark_store.bukafresh_backend.service.clients;
+
+import com.dark_store.bukafresh_backend.config.OnePipeProperties;
+import com.dark_store.bukafresh_backend.dto.onePipe.request.CollectRequest;
+import com.dark_store.bukafresh_backend.dto.onePipe.response.OnePipeResponse;
+import com.dark_store.bukafresh_backend.util.MD5Hash;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OnePipeCollectClient {
+
+    private final OnePipeHttpClient onePipeHttpClient;
+    private final OnePipeProperties props;
+
+    /**
+     * Debits a recurring charge against an existing mandate. The payment reference is the
+     * transaction_ref, so a retried request is recognised by OnePipe as the same debit.
+     */
+    public Mono<OnePipeResponse> collect(
+            String mandateId,
+            String paymentReference,
+            long amountKobo,
+            String firstName,
+            String lastName,
+            String phone
+    ) {
+        if (mandateId == null || mandateId.isBlank())
+            throw new IllegalArgumentException("Mandate id is required");
+
+        if (amountKobo <= 0)
+            throw new IllegalArgumentException("Amount must be greater than zero");
+
+        String requestRef = "REQ_" + UUID.randomUUID();
+
+        Map<String, Object> meta = new HashMap<>();
+        meta.put("mandate_id", mandateId);
+        meta.put("biller_code", props.getBillerCode());
+
+        CollectRequest payload = CollectRequest.builder()
+                .request_ref(requestRef)
+                .request_type("collect")
+                .auth(CollectRequest.Auth.builder()
+                        .type(null)
+                        .secure(null)
+                        .auth_provider("PaywithAccount")
+                        .build())
+                .transaction(CollectRequest.Transaction.builder()
+                        .transaction_ref(paymentReference)
+                        .amount(amountKobo)
+                        .customer(CollectRequest.Customer.builder()
+                                .customer_ref(phone)
+                                .first_name(firstName)
+                                .last_name(lastName)
+                                .mobile_no(phone)
+                                .build())
+                        .meta(meta)
+                        .build())
+                .build();
+
+        return onePipeHttpClient.post(
+                "/v2/transact",
+                Map.of(
+                        "Authorization", "Bearer " + props.getApiKey(),
+                        "Signature", MD5Hash.generate(requestRef, props.getClientSecret())
+                ),
+                payload,
+                OnePipeResponse.class,
+                true
+        );
+    }
+}
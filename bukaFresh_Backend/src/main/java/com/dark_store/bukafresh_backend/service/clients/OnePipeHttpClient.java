@@ -0,0 +1,82 @@
+package com.dark_store.bukafresh_backend.service.clients;
+
+import com.dark_store.bukafresh_backend.config.OnePipeProperties;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.handler.timeout.ReadTimeoutException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.net.ConnectException;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Single entry point for OnePipe calls. Each call runs inside the bulkhead and circuit breaker,
+ * retries transient failures with jittered backoff, and is cut off at the configured deadline.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OnePipeHttpClient {
+
+    private final WebClient webClient;
+    private final OnePipeProperties props;
+    private final CircuitBreaker onePipeCircuitBreaker;
+    private final Bulkhead onePipeBulkhead;
+
+    /**
+     * @param idempotent whether OnePipe deduplicates a repeat of this exact request (same
+     *                   request_ref); only then are timeouts and 5xx responses retried
+     */
+    public <T> Mono<T> post(String path, Map<String, String> headers, Object body,
+                            Class<T> responseType, boolean idempotent) {
+        OnePipeProperties.Http http = props.getHttp();
+
+        Mono<T> attempt = Mono.defer(() -> webClient.post()
+                        .uri(path)
+                        .headers(h -> headers.forEach(h::set))
+                        .bodyValue(body)
+                        .retrieve()
+                        .bodyToMono(responseType))
+                .transformDeferred(CircuitBreakerOperator.of(onePipeCircuitBreaker));
+
+        return attempt
+                .retryWhen(Retry.backoff(http.getMaxRetries(), http.getRetryBackoff())
+                        .maxBackoff(http.getMaxRetryBackoff())
+                        .jitter(0.5)
+                        .filter(e -> isRetryable(e, idempotent))
+                        .doBeforeRetry(signal -> log.warn("Retrying OnePipe {} (attempt {}): {}",
+                                path, signal.totalRetries() + 1, signal.failure().getMessage()))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .timeout(http.getCallDeadline())
+                .transformDeferred(BulkheadOperator.of(onePipeBulkhead));
+    }
+
+    private static boolean isRetryable(Throwable e, boolean idempotent) {
+        // The request never reached OnePipe, so repeating it is always safe
+        if (e instanceof WebClientRequestException request
+                && (request.getCause() instanceof ConnectException
+                || request.getCause() instanceof ConnectTimeoutException)) {
+            return true;
+        }
+        if (!idempotent) {
+            return false;
+        }
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+        }
+        return e instanceof WebClientRequestException
+                || e instanceof ReadTimeoutException
+                || e instanceof TimeoutException;
+    }
+}
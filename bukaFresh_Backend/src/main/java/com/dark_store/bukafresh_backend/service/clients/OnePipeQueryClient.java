@@ -0,0 +1,53 @@
+package com.dark_store.bukafresh_backend.service.clients;
+
+import com.dark_store.bukafresh_backend.config.OnePipeProperties;
+import com.dark_store.bukafresh_backend.dto.onePipe.request.QueryTransactionRequest;
+import com.dark_store.bukafresh_backend.dto.onePipe.response.OnePipeResponse;
+import com.dark_store.bukafresh_backend.util.MD5Hash;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OnePipeQueryClient {
+
+    private final OnePipeHttpClient onePipeHttpClient;
+    private final OnePipeProperties props;
+
+    /**
+     * Looks up the current status of a transaction by our transaction_ref. Read-only, so it is
+     * safe to retry. {@code requestType} must be the request_type the transaction was sent with.
+     */
+    public Mono<OnePipeResponse> queryTransaction(String transactionRef, String requestType) {
+        String requestRef = "QRY_" + UUID.randomUUID();
+
+        QueryTransactionRequest payload = QueryTransactionRequest.builder()
+                .request_ref(requestRef)
+                // Queries carry the request_type of the original transaction
+                .request_type(requestType)
+                .auth(QueryTransactionRequest.Auth.builder()
+                        .auth_provider("PaywithAccount")
+                        .build())
+                .transaction(QueryTransactionRequest.Transaction.builder()
+                        .transaction_ref(transactionRef)
+                        .build())
+                .build();
+
+        return onePipeHttpClient.post(
+                "/v2/transact/query",
+                Map.of(
+                        "Authorization", "Bearer " + props.getApiKey(),
+                        "Signature", MD5Hash.generate(requestRef, props.getClientSecret())
+                ),
+                payload,
+                OnePipeResponse.class,
+                true
+        );
+    }
+}
@@ -9,11 +9,11 @@ import com.dark_store.bukafresh_backend.util.TripleDES;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 
 @Component
@@ -21,7 +21,7 @@ import java.util.UUID;
 @Slf4j
 public class OnePipeSendInvoiceClient {
 
-    private final WebClient webClient;
+    private final OnePipeHttpClient onePipeHttpClient;
     private final OnePipeProperties props;
 
     public Mono<OnePipeResponse> sendSubscriptionInvoice(
@@ -65,14 +65,17 @@ public class OnePipeSendInvoiceClient {
 
     private Mono<OnePipeResponse> sendRequest(String requestRef, SendInvoiceRequest payload
     ) {
-        return webClient
-                .post()
-                .uri(props.getBaseUrl() + "/v2/transact")
-                .header("Authorization", "Bearer " + props.getApiKey())
-                .header("Signature", MD5Hash.generate(requestRef, props.getClientSecret()))
-                .bodyValue(payload)
-                .retrieve()
-                .bodyToMono(OnePipeResponse.class);
+        // Retries resend the same request_ref, which OnePipe treats as the same transaction
+        return onePipeHttpClient.post(
+                "/v2/transact",
+                Map.of(
+                        "Authorization", "Bearer " + props.getApiKey(),
+                        "Signature", MD5Hash.generate(requestRef, props.getClientSecret())
+                ),
+                payload,
+                OnePipeResponse.class,
+                true
+        );
     }
 
 
@@ -0,0 +1,185 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.config.BackgroundTaskProperties;
+import com.dark_store.bukafresh_backend.exception.ServiceBusyException;
+import com.dark_store.bukafresh_backend.service.BackgroundTaskService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bounded replacement for bare {@code mono.subscribe()}. Each category has its own in-flight
+ * limit and queue; the next queued task starts when a running one terminates. On shutdown new
+ * work is refused and queued work is given {@code drain-timeout} to finish, before the OnePipe
+ * connection pool the tasks use is closed.
+ */
+@Service
+@DependsOn("onePipeConnectionProvider")
+@Slf4j
+public class BackgroundTaskServiceImpl implements BackgroundTaskService {
+
+    private record Task(String description, Mono<?> work) {}
+
+    private static final class Lane {
+        final String name;
+        final BackgroundTaskProperties.Category config;
+        final Deque<Task> queue = new ArrayDeque<>();
+        int inFlight;
+
+        Counter succeeded;
+        Counter failed;
+        Counter rejected;
+        Counter dropped;
+
+        Lane(String name, BackgroundTaskProperties.Category config) {
+            this.name = name;
+            this.config = config;
+        }
+
+        synchronized int inFlight() {
+            return inFlight;
+        }
+
+        synchronized int queued() {
+            return queue.size();
+        }
+    }
+
+    private final BackgroundTaskProperties properties;
+    private final Map<String, Lane> lanes = new HashMap<>();
+    private volatile boolean shuttingDown;
+
+    public BackgroundTaskServiceImpl(BackgroundTaskProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+
+        properties.getCategories().forEach((name, config) -> {
+            Lane lane = new Lane(name, config);
+            Gauge.builder("background.tasks.in_flight", lane, Lane::inFlight)
+                    .tag("category", name)
+                    .register(meterRegistry);
+            Gauge.builder("background.tasks.queued", lane, Lane::queued)
+                    .tag("category", name)
+                    .register(meterRegistry);
+            lane.succeeded = counter(meterRegistry, "background.tasks.completed", name, "outcome", "success");
+            lane.failed = counter(meterRegistry, "background.tasks.completed", name, "outcome", "error");
+            lane.rejected = counter(meterRegistry, "background.tasks.overflow", name, "action", "rejected");
+            lane.dropped = counter(meterRegistry, "background.tasks.overflow", name, "action", "dropped");
+            lanes.put(name, lane);
+        });
+    }
+
+    @Override
+    public void submit(String category, String description, Mono<?> task) {
+        Lane lane = lanes.get(category);
+        if (lane == null) {
+            throw new IllegalArgumentException("Unknown background task category: " + category);
+        }
+
+        Task submitted = new Task(description, task);
+        Task evicted = null;
+        boolean start = false;
+
+        synchronized (lane) {
+            if (shuttingDown) {
+                lane.rejected.increment();
+                throw new ServiceBusyException("Server is shutting down, please retry");
+            }
+
+            if (lane.inFlight < lane.config.getMaxConcurrency()) {
+                lane.inFlight++;
+                start = true;
+            } else if (lane.queue.size() < lane.config.getQueueCapacity()) {
+                lane.queue.addLast(submitted);
+            } else {
+                switch (lane.config.getOverflow()) {
+                    case REJECT -> {
+                        lane.rejected.increment();
+                        throw new ServiceBusyException("Too many pending " + category + " tasks, please retry");
+                    }
+                    case DROP_NEWEST -> evicted = submitted;
+                    case DROP_OLDEST -> {
+                        evicted = lane.queue.pollFirst();
+                        lane.queue.addLast(submitted);
+                    }
+                }
+            }
+        }
+
+        if (evicted != null) {
+            lane.dropped.increment();
+            log.warn("Background {} queue full, dropped task: {}", category, evicted.description());
+        }
+        if (start) {
+            run(lane, submitted);
+        }
+    }
+
+    private void run(Lane lane, Task task) {
+        task.work()
+                .timeout(lane.config.getTimeout())
+                .doFinally(signal -> next(lane))
+                .subscribe(
+                        ignored -> { },
+                        error -> {
+                            lane.failed.increment();
+                            log.error("Background {} task failed ({}): {}",
+                                    lane.name, task.description(), error.getMessage());
+                        },
+                        lane.succeeded::increment
+                );
+    }
+
+    // Hands the freed slot to the next queued task, if any. It is started from the scheduler rather
+    // than this callback, so a run of tasks that complete immediately does not nest ever deeper
+    private void next(Lane lane) {
+        Task next;
+        synchronized (lane) {
+            next = lane.queue.pollFirst();
+            if (next == null) {
+                lane.inFlight--;
+            }
+        }
+        if (next != null) {
+            Schedulers.boundedElastic().schedule(() -> run(lane, next));
+        }
+    }
+
+    @PreDestroy
+    public void drain() throws InterruptedException {
+        shuttingDown = true;
+        long deadline = System.nanoTime() + properties.getDrainTimeout().toNanos();
+
+        while (System.nanoTime() < deadline) {
+            if (lanes.values().stream().allMatch(lane -> lane.inFlight() == 0 && lane.queued() == 0)) {
+                log.info("Background tasks drained");
+                return;
+            }
+            Thread.sleep(50);
+        }
+
+        lanes.values().forEach(lane -> {
+            if (lane.inFlight() > 0 || lane.queued() > 0) {
+                log.warn("Shutting down with {} running and {} queued {} tasks",
+                        lane.inFlight(), lane.queued(), lane.name);
+            }
+        });
+    }
+
+    private static Counter counter(MeterRegistry registry, String name, String category, String tag, String value) {
+        return Counter.builder(name)
+                .tag("category", category)
+                .tag(tag, value)
+                .register(registry);
+    }
+}
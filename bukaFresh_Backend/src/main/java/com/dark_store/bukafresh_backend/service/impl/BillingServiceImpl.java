@@ -0,0 +1,254 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.config.BillingProperties;
+import com.dark_store.bukafresh_backend.model.JobCheckpoint;
+import com.dark_store.bukafresh_backend.model.Subscription;
+import com.dark_store.bukafresh_backend.repository.JobCheckpointRepository;
+import com.dark_store.bukafresh_backend.service.BillingService;
+import com.dark_store.bukafresh_backend.service.MandateDebitService;
+import com.dark_store.bukafresh_backend.service.PaymentService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Recurring billing. ACTIVE subscriptions due today or earlier are read through a cursor in
+ * (nextBillingDate, billingSlot, _id) order, today's only once their billing window has opened,
+ * and debited through {@link MandateDebitService} with bounded concurrency. Each cycle gets
+ * exactly one payment, keyed by subscription and billing date, so a resumed run never charges
+ * twice; billing dates of a finished batch are moved forward with one bulk write and the position
+ * is checkpointed.
+ */
+@Service
+@Slf4j
+public class BillingServiceImpl implements BillingService {
+
+    private static final String JOB_NAME = "subscription-billing";
+
+    private final MongoTemplate mongoTemplate;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final PaymentService paymentService;
+    private final MandateDebitService mandateDebitService;
+    private final BillingProperties properties;
+    private final Map<String, Counter> outcomes;
+
+    public BillingServiceImpl(MongoTemplate mongoTemplate,
+                              JobCheckpointRepository jobCheckpointRepository,
+                              PaymentService paymentService,
+                              MandateDebitService mandateDebitService,
+                              BillingProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.jobCheckpointRepository = jobCheckpointRepository;
+        this.paymentService = paymentService;
+        this.mandateDebitService = mandateDebitService;
+        this.properties = properties;
+        this.outcomes = Map.of(
+                MandateDebitService.SUBMITTED, outcomeCounter(meterRegistry, MandateDebitService.SUBMITTED),
+                MandateDebitService.PAID, outcomeCounter(meterRegistry, MandateDebitService.PAID),
+                MandateDebitService.DECLINED, outcomeCounter(meterRegistry, MandateDebitService.DECLINED),
+                MandateDebitService.UNKNOWN, outcomeCounter(meterRegistry, MandateDebitService.UNKNOWN),
+                "already_billed", outcomeCounter(meterRegistry, "already_billed"),
+                "no_mandate", outcomeCounter(meterRegistry, "no_mandate"),
+                "error", outcomeCounter(meterRegistry, "error")
+        );
+    }
+
+    @Override
+    public int billDueSubscriptions(int partition, int partitions, BooleanSupplier leaseHeld) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        // Today's subscriptions are billed once their slot's window has opened; earlier windows
+        // stay included so anything a missed run left behind is caught up
+        int windowMinutes = (int) Math.max(1, properties.getWindow().toMinutes());
+        int minuteOfDay = now.getHour() * 60 + now.getMinute();
+        int windowEnd = (minuteOfDay / windowMinutes + 1) * windowMinutes;
+
+        String checkpointId = JOB_NAME + ":" + partition + "/" + partitions;
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(checkpointId)
+                .orElseGet(() -> JobCheckpoint.builder().id(checkpointId).startedAt(Instant.now()).build());
+
+        int handled = 0;
+        boolean exhausted = false;
+
+        Query due = dueAfter(checkpoint, today, windowEnd, partition, partitions);
+        try (Stream<Subscription> cursor = mongoTemplate.stream(due, Subscription.class)) {
+            Iterator<Subscription> subscriptions = cursor.iterator();
+
+            while (handled < properties.getMaxPerRun() && leaseHeld.getAsBoolean()) {
+                List<Subscription> batch = nextBatch(subscriptions);
+                if (batch.isEmpty()) {
+                    exhausted = true;
+                    break;
+                }
+
+                advanceBillingDates(chargeBatch(batch), today);
+                handled += batch.size();
+                if (!leaseHeld.getAsBoolean()) {
+                    // The checkpoint belongs to the node holding the lease now; this batch is
+                    // idempotent per cycle, so it being redone from the old checkpoint is harmless
+                    break;
+                }
+
+                Subscription last = batch.get(batch.size() - 1);
+                // Date and slot packed into one sort value: the slot is a minute of that day
+                checkpoint.setLastSortValue(last.getNextBillingDate().atStartOfDay()
+                        .plusMinutes(slotOf(last)));
+                checkpoint.setLastDocumentId(last.getId());
+                checkpoint.setProcessed(checkpoint.getProcessed() + batch.size());
+                checkpoint.setUpdatedAt(Instant.now());
+                jobCheckpointRepository.save(checkpoint);
+            }
+        }
+
+        if (exhausted) {
+            // Full pass done; subscriptions that errored are still due and are retried next pass
+            log.info("Billing pass of partition {}/{} complete, {} subscriptions handled in total",
+                    partition, partitions, checkpoint.getProcessed());
+            jobCheckpointRepository.deleteById(checkpointId);
+        }
+        return handled;
+    }
+
+    private Query dueAfter(JobCheckpoint checkpoint, LocalDate today, int windowEnd,
+                           int partition, int partitions) {
+        Criteria criteria = new Criteria().andOperator(
+                Criteria.where("status").is("ACTIVE"),
+                new Criteria().orOperator(
+                        Criteria.where("nextBillingDate").lt(today),
+                        Criteria.where("nextBillingDate").is(today).and("billingSlot").lt(windowEnd)
+                )
+        );
+        if (partitions > 1) {
+            criteria = new Criteria().andOperator(criteria, Criteria.where("userBucket").mod(partitions, partition));
+        }
+
+        // Each run only adds slots above the ones already open today, so resuming after
+        // (nextBillingDate, billingSlot, _id) never skips a newly opened window
+        if (checkpoint.getLastSortValue() != null) {
+            LocalDate lastDate = checkpoint.getLastSortValue().toLocalDate();
+            int lastSlot = checkpoint.getLastSortValue().getHour() * 60 + checkpoint.getLastSortValue().getMinute();
+            criteria = new Criteria().andOperator(criteria, new Criteria().orOperator(
+                    Criteria.where("nextBillingDate").gt(lastDate),
+                    Criteria.where("nextBillingDate").is(lastDate).and("billingSlot").gt(lastSlot),
+                    Criteria.where("nextBillingDate").is(lastDate).and("billingSlot").is(lastSlot)
+                            .and("_id").gt(checkpoint.getLastDocumentId())
+            ));
+        }
+
+        Query query = Query.query(criteria)
+                .with(Sort.by("nextBillingDate", "billingSlot", "_id"))
+                .cursorBatchSize(properties.getBatchSize());
+        query.fields().include("_id", "userId", "tier", "billingCycle", "nextBillingDate", "billingSlot", "mandateId");
+        return query;
+    }
+
+    private static int slotOf(Subscription subscription) {
+        return subscription.getBillingSlot() == null ? 0 : subscription.getBillingSlot();
+    }
+
+    private List<Subscription> nextBatch(Iterator<Subscription> subscriptions) {
+        List<Subscription> batch = new ArrayList<>(properties.getBatchSize());
+        while (batch.size() < properties.getBatchSize() && subscriptions.hasNext()) {
+            batch.add(subscriptions.next());
+        }
+        return batch;
+    }
+
+    // Returns the subscriptions whose cycle has a payment and whose billing date may move on
+    private List<Subscription> chargeBatch(List<Subscription> batch) {
+        List<Subscription> billed = Flux.fromIterable(batch)
+                .flatMap(this::charge, properties.getConcurrency())
+                .collectList()
+                .block(properties.getBatchTimeout());
+        return billed == null ? List.of() : billed;
+    }
+
+    private Mono<Subscription> charge(Subscription subscription) {
+        if (subscription.getMandateId() == null || subscription.getMandateId().isBlank()) {
+            outcomes.get("no_mandate").increment();
+            log.warn("Subscription {} is due but has no mandate to debit", subscription.getId());
+            return Mono.empty();
+        }
+
+        return Mono.fromCallable(() -> paymentService.createCyclePayment(subscription, subscription.getNextBillingDate()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(cycle -> {
+                    if (!cycle.created() && !"PENDING".equals(cycle.payment().getStatus())) {
+                        // An earlier run charged this cycle but stopped before moving the date on
+                        outcomes.get("already_billed").increment();
+                        return Mono.just(subscription);
+                    }
+                    // A PENDING payment from an earlier run may never have been sent; the debit
+                    // reuses its payment reference, which OnePipe deduplicates
+                    return mandateDebitService.debit(subscription.getUserId(), subscription.getMandateId(), cycle.payment())
+                            .doOnNext(outcome -> outcomes.get(outcome).increment())
+                            // The cycle is billed whatever the outcome; declined payments go to dunning
+                            .thenReturn(subscription);
+                })
+                .onErrorResume(e -> {
+                    outcomes.get("error").increment();
+                    log.warn("Could not bill subscription {}: {}", subscription.getId(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private void advanceBillingDates(List<Subscription> billed, LocalDate today) {
+        if (billed.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Subscription.class);
+        LocalDateTime now = LocalDateTime.now();
+        for (Subscription subscription : billed) {
+            // Conditional on the date we billed for, so an overlapping run cannot advance it twice
+            bulk.updateOne(
+                    Query.query(Criteria.where("_id").is(subscription.getId())
+                            .and("nextBillingDate").is(subscription.getNextBillingDate())),
+                    new Update()
+                            .set("nextBillingDate", nextBillingDate(subscription, today))
+                            .set("updatedAt", now)
+            );
+        }
+        bulk.execute();
+    }
+
+    // Missed cycles are billed once, then the date lands on the first cycle after today
+    private static LocalDate nextBillingDate(Subscription subscription, LocalDate today) {
+        LocalDate next = subscription.getNextBillingDate();
+        while (!next.isAfter(today)) {
+            next = switch (String.valueOf(subscription.getBillingCycle()).toUpperCase()) {
+                case "WEEKLY" -> next.plusWeeks(1);
+                case "YEARLY" -> next.plusYears(1);
+                default -> next.plusMonths(1);
+            };
+        }
+        return next;
+    }
+
+    private static Counter outcomeCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("billing.charges")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -5,17 +5,21 @@ import com.dark_store.bukafresh_backend.exception.BusinessException;
 import com.dark_store.bukafresh_backend.exception.ResourceNotFoundException;
 import com.dark_store.bukafresh_backend.model.*;
 import com.dark_store.bukafresh_backend.repository.*;
+import com.dark_store.bukafresh_backend.service.BackgroundTaskService;
 import com.dark_store.bukafresh_backend.service.DeliveryService;
 import com.dark_store.bukafresh_backend.service.SecurityAlertService;
+import com.dark_store.bukafresh_backend.service.SubscriptionService;
 import com.dark_store.bukafresh_backend.util.CurrentUserUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -29,13 +33,22 @@ public class DeliveryServiceImpl implements DeliveryService {
     private final SubscriptionRepository subscriptionRepository;
     private final AddressRepository addressRepository;
     private final SecurityAlertService securityAlertService;
+    private final BackgroundTaskService backgroundTaskService;
     private final ProfileRepository profileRepository;
+    private final SubscriptionService subscriptionService;
 
 
     @Override
     public Delivery createDeliveryFromPayment(String paymentId, String subscriptionId) {
         log.info("Creating delivery for payment: {} and subscription: {}", paymentId, subscriptionId);
-        
+
+        // PaymentSucceeded events can be redelivered; one payment only ever gets one delivery
+        Optional<Delivery> existing = deliveryRepository.findByPaymentId(paymentId);
+        if (existing.isPresent()) {
+            log.info("Delivery {} already exists for payment: {}", existing.get().getId(), paymentId);
+            return existing.get();
+        }
+
         Payment payment = paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Payment not found"));
         
@@ -73,8 +86,24 @@ public class DeliveryServiceImpl implements DeliveryService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
-        
-        delivery = deliveryRepository.save(delivery);
+
+        // Quota is taken last, right before the insert, and given back if the insert does not land
+        if (!subscriptionService.consumeDeliveryQuota(subscriptionId)) {
+            throw new BusinessException("Monthly delivery quota reached for subscription " + subscriptionId);
+        }
+
+        try {
+            delivery = deliveryRepository.insert(delivery);
+        } catch (DuplicateKeyException e) {
+            // Another consumer created it between the lookup and the insert, and notified the user;
+            // that one already counted against the quota
+            subscriptionService.releaseDeliveryQuota(subscriptionId);
+            return deliveryRepository.findByPaymentId(paymentId)
+                    .orElseThrow(() -> new IllegalStateException("Delivery exists but cannot be found"));
+        } catch (RuntimeException e) {
+            subscriptionService.releaseDeliveryQuota(subscriptionId);
+            throw e;
+        }
         log.info("Delivery created successfully with ID: {}", delivery.getId());
 
         securityAlertService.sendTrackingNumber(userProfile.getEmail(),delivery.getTrackingNumber());
@@ -87,9 +116,11 @@ public class DeliveryServiceImpl implements DeliveryService {
                 userProfile.getFirstName(),
                 delivery.getTrackingNumber()
         );
-        securityAlertService.sendSms(userProfile.getPhone(), message)
-                .doOnError(e -> log.error("Failed to send SMS: {}", e.getMessage()))
-                .subscribe();
+        backgroundTaskService.submit(
+                "sms",
+                "tracking SMS for delivery " + delivery.getId(),
+                securityAlertService.sendSms(userProfile.getPhone(), message)
+        );
 
         return delivery;
     }
@@ -0,0 +1,349 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.config.DunningProperties;
+import com.dark_store.bukafresh_backend.exception.ResourceNotFoundException;
+import com.dark_store.bukafresh_backend.model.Payment;
+import com.dark_store.bukafresh_backend.model.PaymentRetry;
+import com.dark_store.bukafresh_backend.model.Subscription;
+import com.dark_store.bukafresh_backend.repository.PaymentRepository;
+import com.dark_store.bukafresh_backend.repository.PaymentRetryRepository;
+import com.dark_store.bukafresh_backend.repository.SubscriptionRepository;
+import com.dark_store.bukafresh_backend.service.DunningService;
+import com.dark_store.bukafresh_backend.service.MandateDebitService;
+import com.dark_store.bukafresh_backend.service.PaymentService;
+import com.dark_store.bukafresh_backend.service.SubscriptionService;
+import com.dark_store.bukafresh_backend.util.StableHash;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Retries failed recurring charges on the dunning.schedule. A failed billing payment opens a
+ * retry; each attempt is its own payment (keyed by retry and attempt number) debited against the
+ * mandate, and its PaymentSucceeded/PaymentFailed event decides whether the retry is recovered,
+ * scheduled again, or exhausted, which suspends the subscription. Every state change is
+ * conditional on the state it expects, so redelivered events and overlapping workers are no-ops.
+ */
+@Service
+@Slf4j
+public class DunningServiceImpl implements DunningService {
+
+    private final MongoTemplate mongoTemplate;
+    private final PaymentRetryRepository paymentRetryRepository;
+    private final PaymentRepository paymentRepository;
+    private final SubscriptionRepository subscriptionRepository;
+    private final PaymentService paymentService;
+    private final SubscriptionService subscriptionService;
+    private final MandateDebitService mandateDebitService;
+    private final DunningProperties properties;
+
+    private final Map<String, Counter> attemptOutcomes;
+    private final Map<String, Counter> retryResults;
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicReference<Double> recoveryRate = new AtomicReference<>(0.0);
+
+    public DunningServiceImpl(MongoTemplate mongoTemplate,
+                              PaymentRetryRepository paymentRetryRepository,
+                              PaymentRepository paymentRepository,
+                              SubscriptionRepository subscriptionRepository,
+                              PaymentService paymentService,
+                              SubscriptionService subscriptionService,
+                              MandateDebitService mandateDebitService,
+                              DunningProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.paymentRetryRepository = paymentRetryRepository;
+        this.paymentRepository = paymentRepository;
+        this.subscriptionRepository = subscriptionRepository;
+        this.paymentService = paymentService;
+        this.subscriptionService = subscriptionService;
+        this.mandateDebitService = mandateDebitService;
+        this.properties = properties;
+
+        // Throughput of retry debits by immediate outcome
+        this.attemptOutcomes = Map.of(
+                MandateDebitService.PAID, counter(meterRegistry, "dunning.attempts", "outcome", MandateDebitService.PAID),
+                MandateDebitService.DECLINED, counter(meterRegistry, "dunning.attempts", "outcome", MandateDebitService.DECLINED),
+                MandateDebitService.SUBMITTED, counter(meterRegistry, "dunning.attempts", "outcome", MandateDebitService.SUBMITTED),
+                MandateDebitService.UNKNOWN, counter(meterRegistry, "dunning.attempts", "outcome", MandateDebitService.UNKNOWN),
+                "error", counter(meterRegistry, "dunning.attempts", "outcome", "error")
+        );
+        this.retryResults = Map.of(
+                "scheduled", counter(meterRegistry, "dunning.retries", "result", "scheduled"),
+                "rescheduled", counter(meterRegistry, "dunning.retries", "result", "rescheduled"),
+                "recovered", counter(meterRegistry, "dunning.retries", "result", "recovered"),
+                "exhausted", counter(meterRegistry, "dunning.retries", "result", "exhausted")
+        );
+
+        Gauge.builder("dunning.backlog", backlog, AtomicLong::get).register(meterRegistry);
+        // Recovered / (recovered + exhausted) over the retries still retained, cluster-wide
+        Gauge.builder("dunning.recovery_rate", recoveryRate, AtomicReference::get).register(meterRegistry);
+    }
+
+    @Override
+    public void onPaymentFailed(String paymentId) {
+        Payment payment = paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Payment not found: " + paymentId));
+        if (!"FAILED".equals(payment.getStatus())) {
+            return;
+        }
+
+        if (payment.getRetryOf() != null) {
+            recordFailedAttempt(payment);
+            return;
+        }
+
+        // Only recurring charges are retried; a failed first payment leaves the subscription PENDING
+        if (payment.getIdempotencyKey() == null || !payment.getIdempotencyKey().startsWith(PaymentService.CYCLE_KEY_PREFIX)) {
+            return;
+        }
+
+        if (properties.getSchedule().isEmpty()) {
+            subscriptionService.suspendForNonPayment(payment.getSubscriptionId(), properties.getExhaustedStatus());
+            return;
+        }
+
+        Instant now = Instant.now();
+        try {
+            paymentRetryRepository.insert(PaymentRetry.builder()
+                    .id(payment.getId())
+                    .subscriptionId(payment.getSubscriptionId())
+                    .userId(payment.getUserId())
+                    .userBucket(StableHash.bucket(payment.getUserId(), Subscription.USER_BUCKETS))
+                    .amount(payment.getAmount())
+                    .state(PaymentRetry.SCHEDULED)
+                    .attempts(0)
+                    .firstFailedAt(now)
+                    .nextAttemptAt(now.plus(properties.getSchedule().get(0)))
+                    .lastFailureReason(payment.getFailureReason())
+                    .build());
+            retryResults.get("scheduled").increment();
+            log.info("Scheduled dunning for payment {} on subscription {}", paymentId, payment.getSubscriptionId());
+        } catch (DuplicateKeyException e) {
+            // Redelivered event; retries are already scheduled
+        }
+    }
+
+    private void recordFailedAttempt(Payment attempt) {
+        PaymentRetry retry = paymentRetryRepository.findById(attempt.getRetryOf()).orElse(null);
+        if (retry == null
+                || !PaymentRetry.AWAITING_RESULT.equals(retry.getState())
+                || !attempt.getId().equals(retry.getCurrentPaymentId())) {
+            return;
+        }
+
+        Query awaitingThisAttempt = Query.query(Criteria.where("_id").is(retry.getId())
+                .and("state").is(PaymentRetry.AWAITING_RESULT)
+                .and("currentPaymentId").is(attempt.getId()));
+        Instant now = Instant.now();
+
+        if (retry.getAttempts() < properties.getSchedule().size()) {
+            Instant next = retry.getFirstFailedAt().plus(properties.getSchedule().get(retry.getAttempts()));
+            boolean rescheduled = mongoTemplate.updateFirst(awaitingThisAttempt, new Update()
+                    .set("state", PaymentRetry.SCHEDULED)
+                    .set("nextAttemptAt", next.isBefore(now) ? now : next)
+                    .set("lastFailureReason", attempt.getFailureReason()), PaymentRetry.class
+            ).getModifiedCount() > 0;
+            if (rescheduled) {
+                retryResults.get("rescheduled").increment();
+            }
+            return;
+        }
+
+        // Suspend before closing the retry, so a crash in between is repaired by the redelivery
+        subscriptionService.suspendForNonPayment(retry.getSubscriptionId(), properties.getExhaustedStatus());
+        boolean exhausted = mongoTemplate.updateFirst(awaitingThisAttempt, new Update()
+                .set("state", PaymentRetry.EXHAUSTED)
+                .set("lastFailureReason", attempt.getFailureReason())
+                .set("completedAt", now)
+                .set("purgeAt", now.plus(properties.getRetention())), PaymentRetry.class
+        ).getModifiedCount() > 0;
+        if (exhausted) {
+            retryResults.get("exhausted").increment();
+            log.warn("Dunning exhausted for subscription {} after {} retries",
+                    retry.getSubscriptionId(), retry.getAttempts());
+        }
+    }
+
+    @Override
+    public void onPaymentSucceeded(String paymentId) {
+        Payment payment = paymentRepository.findById(paymentId).orElse(null);
+        if (payment == null || payment.getRetryOf() == null) {
+            return;
+        }
+
+        Instant now = Instant.now();
+        boolean recovered = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(payment.getRetryOf())
+                        .and("state").in(PaymentRetry.SCHEDULED, PaymentRetry.AWAITING_RESULT)),
+                new Update()
+                        .set("state", PaymentRetry.RECOVERED)
+                        .set("currentPaymentId", paymentId)
+                        .set("completedAt", now)
+                        .set("purgeAt", now.plus(properties.getRetention())),
+                PaymentRetry.class
+        ).getModifiedCount() > 0;
+        if (recovered) {
+            retryResults.get("recovered").increment();
+        }
+    }
+
+    @Override
+    public int processDueRetries(int partition, int partitions, BooleanSupplier leaseHeld) {
+        int picked = 0;
+
+        try (Stream<PaymentRetry> cursor = mongoTemplate.stream(due(partition, partitions), PaymentRetry.class)) {
+            Iterator<PaymentRetry> retries = cursor.iterator();
+
+            while (retries.hasNext() && leaseHeld.getAsBoolean()) {
+                List<PaymentRetry> batch = new ArrayList<>(properties.getBatchSize());
+                while (batch.size() < properties.getBatchSize() && retries.hasNext()) {
+                    batch.add(retries.next());
+                }
+
+                Flux.fromIterable(batch)
+                        .flatMap(this::attempt, properties.getConcurrency())
+                        .then()
+                        .block(properties.getBatchTimeout());
+                picked += batch.size();
+            }
+        }
+        return picked;
+    }
+
+    private Query due(int partition, int partitions) {
+        Instant now = Instant.now();
+        Criteria criteria = new Criteria().orOperator(
+                Criteria.where("state").is(PaymentRetry.SCHEDULED).and("nextAttemptAt").lte(now),
+                // The debit may never have reached OnePipe; sending it again reuses the reference
+                Criteria.where("state").is(PaymentRetry.AWAITING_RESULT)
+                        .and("lastAttemptAt").lt(now.minus(properties.getResultTimeout()))
+        );
+        if (partitions > 1) {
+            criteria = new Criteria().andOperator(criteria, Criteria.where("userBucket").mod(partitions, partition));
+        }
+
+        return Query.query(criteria)
+                .with(Sort.by("nextAttemptAt"))
+                .cursorBatchSize(properties.getBatchSize());
+    }
+
+    private Mono<Void> attempt(PaymentRetry retry) {
+        return Mono.fromCallable(() -> prepare(retry))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(debit -> mandateDebitService.debit(debit.userId(), debit.mandateId(), debit.payment()))
+                .doOnNext(outcome -> attemptOutcomes.get(outcome).increment())
+                .onErrorResume(e -> {
+                    attemptOutcomes.get("error").increment();
+                    log.warn("Dunning attempt for payment {} failed: {}", retry.getId(), e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    // Claims the retry and returns the debit to send, or null if there is nothing to send
+    private Debit prepare(PaymentRetry retry) {
+        Subscription subscription = subscriptionRepository.findById(retry.getSubscriptionId()).orElse(null);
+        if (subscription == null
+                || !"ACTIVE".equals(subscription.getStatus())
+                || subscription.getMandateId() == null) {
+            close(retry, "Subscription no longer active or has no mandate");
+            return null;
+        }
+
+        if (PaymentRetry.AWAITING_RESULT.equals(retry.getState())) {
+            Payment pending = paymentRepository.findById(retry.getCurrentPaymentId()).orElse(null);
+            boolean reclaimed = pending != null && "PENDING".equals(pending.getStatus())
+                    && mongoTemplate.updateFirst(
+                            Query.query(Criteria.where("_id").is(retry.getId())
+                                    .and("state").is(PaymentRetry.AWAITING_RESULT)
+                                    .and("lastAttemptAt").is(retry.getLastAttemptAt())),
+                            new Update().set("lastAttemptAt", Instant.now()),
+                            PaymentRetry.class
+                    ).getModifiedCount() > 0;
+            return reclaimed ? new Debit(subscription.getUserId(), subscription.getMandateId(), pending) : null;
+        }
+
+        Payment failed = paymentRepository.findById(retry.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Payment not found: " + retry.getId()));
+        int attempt = retry.getAttempts() + 1;
+        PaymentService.CyclePayment cycle = paymentService.createRetryPayment(failed, attempt);
+
+        boolean claimed = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(retry.getId())
+                        .and("state").is(PaymentRetry.SCHEDULED)
+                        .and("attempts").is(retry.getAttempts())),
+                new Update()
+                        .set("state", PaymentRetry.AWAITING_RESULT)
+                        .set("attempts", attempt)
+                        .set("currentPaymentId", cycle.payment().getId())
+                        .set("lastAttemptAt", Instant.now()),
+                PaymentRetry.class
+        ).getModifiedCount() > 0;
+
+        // A settled payment's own event moves the retry on
+        if (!claimed || !"PENDING".equals(cycle.payment().getStatus())) {
+            return null;
+        }
+        return new Debit(subscription.getUserId(), subscription.getMandateId(), cycle.payment());
+    }
+
+    private void close(PaymentRetry retry, String reason) {
+        Instant now = Instant.now();
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(retry.getId()).and("state").is(retry.getState())),
+                new Update()
+                        .set("state", PaymentRetry.EXHAUSTED)
+                        .set("lastFailureReason", reason)
+                        .set("completedAt", now)
+                        .set("purgeAt", now.plus(properties.getRetention())),
+                PaymentRetry.class
+        );
+    }
+
+    @Scheduled(fixedDelayString = "${dunning.metrics-interval:PT1M}")
+    public void refreshMetrics() {
+        try {
+            backlog.set(mongoTemplate.count(
+                    Query.query(Criteria.where("state").in(PaymentRetry.SCHEDULED, PaymentRetry.AWAITING_RESULT)),
+                    PaymentRetry.class));
+
+            long recovered = mongoTemplate.count(
+                    Query.query(Criteria.where("state").is(PaymentRetry.RECOVERED)), PaymentRetry.class);
+            long exhausted = mongoTemplate.count(
+                    Query.query(Criteria.where("state").is(PaymentRetry.EXHAUSTED)), PaymentRetry.class);
+            recoveryRate.set(recovered + exhausted == 0 ? 0.0 : (double) recovered / (recovered + exhausted));
+        } catch (Exception e) {
+            log.warn("Failed to refresh dunning metrics: {}", e.getMessage());
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, String name, String tag, String value) {
+        return Counter.builder(name).tag(tag, value).register(registry);
+    }
+
+    private record Debit(String userId, String mandateId, Payment payment) {
+    }
+}
@@ -0,0 +1,182 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.model.IdempotencyRecord;
+import com.dark_store.bukafresh_backend.service.IdempotencyService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Insert-first idempotency records. The first request for a key wins the insert; retries either
+ * find the completed snapshot (locally, or with one read) or learn that the original is still
+ * running. A running claim holds a lease; if its holder dies without completing or releasing it,
+ * the first retry after the lease expires takes the record over. Completed snapshots are also
+ * kept in a near-cache so a retry on the same node costs no MongoDB round trip at all.
+ */
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private record Completed(String requestHash, Snapshot snapshot) {}
+
+    private final MongoTemplate mongoTemplate;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Cache<String, Completed> nearCache;
+    private final Counter replays;
+
+    public IdempotencyServiceImpl(MongoTemplate mongoTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${idempotency.ttl:PT24H}") Duration ttl,
+                                  @Value("${idempotency.lease:PT2M}") Duration lease,
+                                  @Value("${idempotency.near-cache.ttl:PT10M}") Duration nearCacheTtl,
+                                  @Value("${idempotency.near-cache.max-size:10000}") long nearCacheSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.ttl = ttl;
+        this.lease = lease;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(nearCacheSize)
+                .expireAfterWrite(nearCacheTtl.compareTo(ttl) < 0 ? nearCacheTtl : ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, nearCache, "idempotency.near-cache");
+        this.replays = Counter.builder("idempotency.replays").register(meterRegistry);
+    }
+
+    @Override
+    public Claim begin(String userId, String method, String path, String idempotencyKey, String requestHash) {
+        String recordId = digest(userId + "\n" + method + "\n" + path + "\n" + idempotencyKey);
+
+        Completed cached = nearCache.getIfPresent(recordId);
+        if (cached != null) {
+            return replay(recordId, cached, requestHash);
+        }
+
+        Instant now = Instant.now();
+        String lockId = UUID.randomUUID().toString();
+        try {
+            mongoTemplate.insert(IdempotencyRecord.builder()
+                    .id(recordId)
+                    .userId(userId)
+                    .method(method)
+                    .path(path)
+                    .requestHash(requestHash)
+                    .state(IdempotencyRecord.IN_PROGRESS)
+                    .lockId(lockId)
+                    .lockedUntil(now.plus(lease))
+                    .createdAt(now)
+                    .expiresAt(now.plus(ttl))
+                    .build());
+            return new Claim(Status.ACQUIRED, recordId, lockId, null);
+        } catch (DuplicateKeyException e) {
+            IdempotencyRecord existing = mongoTemplate.findById(recordId, IdempotencyRecord.class);
+
+            if (existing == null) {
+                // Expired or abandoned between the insert and the read; let the client retry
+                return new Claim(Status.IN_PROGRESS, recordId, null, null);
+            }
+            if (!IdempotencyRecord.COMPLETED.equals(existing.getState())) {
+                if (!existing.getRequestHash().equals(requestHash)) {
+                    return new Claim(Status.MISMATCH, recordId, null, null);
+                }
+                return takeOver(recordId, requestHash, lockId, now)
+                        ? new Claim(Status.ACQUIRED, recordId, lockId, null)
+                        : new Claim(Status.IN_PROGRESS, recordId, null, null);
+            }
+
+            Completed completed = new Completed(existing.getRequestHash(), new Snapshot(
+                    existing.getResponseStatus(),
+                    existing.getResponseContentType(),
+                    existing.getResponseBody()
+            ));
+            nearCache.put(recordId, completed);
+            return replay(recordId, completed, requestHash);
+        }
+    }
+
+    // Only one retry wins the conditional update; the rest keep seeing IN_PROGRESS
+    private boolean takeOver(String recordId, String requestHash, String lockId, Instant now) {
+        IdempotencyRecord taken = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(recordId)
+                        .and("state").is(IdempotencyRecord.IN_PROGRESS)
+                        .and("requestHash").is(requestHash)
+                        .and("lockedUntil").lt(now)),
+                new Update()
+                        .set("lockId", lockId)
+                        .set("lockedUntil", now.plus(lease)),
+                IdempotencyRecord.class
+        );
+        if (taken != null) {
+            log.warn("Idempotency record {} took over from a holder whose lease expired", recordId);
+        }
+        return taken != null;
+    }
+
+    @Override
+    public void complete(String recordId, String lockId, String requestHash, Snapshot snapshot) {
+        long updated = mongoTemplate.updateFirst(
+                held(recordId, lockId),
+                new Update()
+                        .set("state", IdempotencyRecord.COMPLETED)
+                        .set("responseStatus", snapshot.status())
+                        .set("responseContentType", snapshot.contentType())
+                        .set("responseBody", snapshot.body())
+                        .unset("lockId")
+                        .unset("lockedUntil"),
+                IdempotencyRecord.class
+        ).getModifiedCount();
+
+        if (updated == 0) {
+            // The lease ran out and another request owns the record now; its outcome is the one kept
+            log.warn("Idempotency record {} was taken over before it completed", recordId);
+            return;
+        }
+        nearCache.put(recordId, new Completed(requestHash, snapshot));
+    }
+
+    @Override
+    public void abandon(String recordId, String lockId) {
+        mongoTemplate.remove(held(recordId, lockId), IdempotencyRecord.class);
+    }
+
+    private static Query held(String recordId, String lockId) {
+        return Query.query(Criteria.where("_id").is(recordId)
+                .and("state").is(IdempotencyRecord.IN_PROGRESS)
+                .and("lockId").is(lockId));
+    }
+
+    private Claim replay(String recordId, Completed completed, String requestHash) {
+        if (!completed.requestHash().equals(requestHash)) {
+            return new Claim(Status.MISMATCH, recordId, null, null);
+        }
+        replays.increment();
+        return new Claim(Status.REPLAY, recordId, null, completed.snapshot());
+    }
+
+    private static String digest(String value) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.config.ClusterJobProperties;
+import com.dark_store.bukafresh_backend.model.JobLock;
+import com.dark_store.bukafresh_backend.service.JobLockService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Leases in {@code job_locks}, taken with a single upserting findAndModify: the filter only
+ * matches a free or expired lock, so when another node holds it the upsert collides on _id and
+ * the acquire fails instead of overwriting the owner.
+ */
+@Service
+@Slf4j
+public class JobLockServiceImpl implements JobLockService {
+
+    private final MongoTemplate mongoTemplate;
+    private final String nodeId;
+
+    public JobLockServiceImpl(MongoTemplate mongoTemplate, ClusterJobProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.nodeId = properties.getNodeId() != null && !properties.getNodeId().isBlank()
+                ? properties.getNodeId()
+                : defaultNodeId();
+        log.info("Cluster job node id {}", nodeId);
+    }
+
+    @Override
+    public boolean tryAcquire(String lockId, long run, Duration lease) {
+        Instant now = Instant.now();
+
+        Query free = Query.query(new Criteria().andOperator(
+                Criteria.where("_id").is(lockId),
+                Criteria.where("lastCompletedRun").ne(run),
+                new Criteria().orOperator(
+                        Criteria.where("leaseExpiresAt").is(null),
+                        Criteria.where("leaseExpiresAt").lt(now)
+                )
+        ));
+
+        try {
+            JobLock lock = mongoTemplate.findAndModify(
+                    free,
+                    new Update()
+                            .set("owner", nodeId)
+                            .set("leaseExpiresAt", now.plus(lease))
+                            .set("acquiredAt", now),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    JobLock.class
+            );
+            return lock != null && nodeId.equals(lock.getOwner());
+        } catch (DuplicateKeyException e) {
+            // Held by another node, or this run is already done
+            return false;
+        }
+    }
+
+    @Override
+    public boolean renew(String lockId, Duration lease) {
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(lockId).and("owner").is(nodeId)),
+                new Update().set("leaseExpiresAt", Instant.now().plus(lease)),
+                JobLock.class
+        ).getModifiedCount() > 0;
+    }
+
+    @Override
+    public void complete(String lockId, long run) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(lockId).and("owner").is(nodeId)),
+                new Update()
+                        .set("lastCompletedRun", run)
+                        .set("completedAt", Instant.now())
+                        .unset("owner")
+                        .unset("leaseExpiresAt"),
+                JobLock.class
+        );
+    }
+
+    @Override
+    public void release(String lockId) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(lockId).and("owner").is(nodeId)),
+                new Update().unset("owner").unset("leaseExpiresAt"),
+                JobLock.class
+        );
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        // Suffix keeps two processes on one host (or a restarted one) from sharing leases
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
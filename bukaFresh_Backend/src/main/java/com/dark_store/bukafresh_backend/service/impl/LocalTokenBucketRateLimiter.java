@@ -0,0 +1,74 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.config.RateLimitProperties;
+import com.dark_store.bukafresh_backend.service.RateLimiter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-node token buckets. Bucket state is guarded by a fixed set of stripe locks rather than one
+ * lock per bucket, and buckets that go idle are evicted by the cache.
+ */
+@Service
+@ConditionalOnProperty(name = "rate-limit.mode", havingValue = "local", matchIfMissing = true)
+public class LocalTokenBucketRateLimiter implements RateLimiter {
+
+    private final Cache<String, Bucket> buckets;
+    private final Object[] stripes;
+
+    public LocalTokenBucketRateLimiter(RateLimitProperties props, MeterRegistry meterRegistry) {
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(props.getIdleEviction())
+                .maximumSize(props.getMaxBuckets())
+                .build();
+
+        this.stripes = new Object[props.getStripes()];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Object();
+        }
+
+        Gauge.builder("rate_limit.buckets", buckets, Cache::estimatedSize)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public long tryAcquire(String key, int capacity, Duration period) {
+        long now = System.nanoTime();
+        Bucket bucket = buckets.get(key, k -> new Bucket(capacity, now));
+
+        synchronized (stripes[Math.floorMod(key.hashCode(), stripes.length)]) {
+            return bucket.tryConsume(capacity, period.toNanos(), now);
+        }
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+
+        private Bucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.lastRefillNanos = now;
+        }
+
+        private long tryConsume(int capacity, long periodNanos, long now) {
+            double refill = (double) (now - lastRefillNanos) * capacity / periodNanos;
+            tokens = Math.min(capacity, tokens + refill);
+            lastRefillNanos = now;
+
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+
+            long waitNanos = (long) Math.ceil((1 - tokens) * periodNanos / capacity);
+            return Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+    }
+}
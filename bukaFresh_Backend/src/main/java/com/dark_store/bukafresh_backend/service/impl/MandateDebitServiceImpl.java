@@ -0,0 +1,108 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.config.BillingProperties;
+import com.dark_store.bukafresh_backend.dto.onePipe.response.OnePipeResponse;
+import com.dark_store.bukafresh_backend.exception.ResourceNotFoundException;
+import com.dark_store.bukafresh_backend.model.Payment;
+import com.dark_store.bukafresh_backend.service.MandateDebitService;
+import com.dark_store.bukafresh_backend.service.OnePipeService;
+import com.dark_store.bukafresh_backend.service.PaymentService;
+import com.dark_store.bukafresh_backend.service.RateLimiter;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.netty.channel.ConnectTimeoutException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Mandate debits for billing and dunning. Both share one rate-limit bucket, so together they
+ * never exceed billing.rate-per-second against OnePipe.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MandateDebitServiceImpl implements MandateDebitService {
+
+    private static final String RATE_LIMIT_KEY = "billing:onepipe-collect";
+    private static final Set<String> SUCCESS_STATUSES = Set.of("SUCCESSFUL", "SUCCESS");
+    private static final Set<String> FAILURE_STATUSES = Set.of("FAILED", "DECLINED", "CANCELLED");
+
+    private final OnePipeService onePipeService;
+    private final PaymentService paymentService;
+    private final RateLimiter rateLimiter;
+    private final BillingProperties properties;
+
+    @Override
+    public Mono<String> debit(String userId, String mandateId, Payment payment) {
+        String reference = payment.getPaymentReference();
+
+        return acquirePermit()
+                .then(Mono.defer(() -> onePipeService.collect(userId, mandateId, reference, payment.getAmount())))
+                .publishOn(Schedulers.boundedElastic())
+                .map(response -> settle(reference, response))
+                .onErrorResume(e -> {
+                    if (!neverSent(e)) {
+                        // OnePipe may have the debit; failing it here would let dunning charge again
+                        // under a new reference. Reconciliation settles it from OnePipe's status.
+                        log.warn("Debit for payment {} has an unknown outcome, left PENDING: {}",
+                                reference, e.getMessage());
+                        return Mono.just(UNKNOWN);
+                    }
+
+                    // A payment that never went out is failed, so dunning can pick it up
+                    log.warn("Debit for payment {} not submitted: {}", reference, e.getMessage());
+                    return Mono.fromCallable(() -> paymentService.handleOnePipeCallback(
+                                    reference, "FAILED", "Debit not submitted: " + e.getMessage()))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .thenReturn(DECLINED);
+                });
+    }
+
+    // True only when the collect request cannot have reached OnePipe
+    private static boolean neverSent(Throwable e) {
+        if (e instanceof WebClientRequestException request) {
+            return request.getCause() instanceof ConnectException
+                    || request.getCause() instanceof ConnectTimeoutException;
+        }
+        if (e instanceof WebClientResponseException response) {
+            // Rejected without processing; 429 is left out as the gateway may still have queued it
+            return response.getStatusCode().is4xxClientError() && response.getStatusCode().value() != 429;
+        }
+        return e instanceof CallNotPermittedException
+                || e instanceof BulkheadFullException
+                // Failed while building the request (no profile, bad amount, sub-kobo amount)
+                || e instanceof ResourceNotFoundException
+                || e instanceof IllegalArgumentException
+                || e instanceof ArithmeticException;
+    }
+
+    private String settle(String reference, OnePipeResponse response) {
+        String status = response.getStatus() == null ? "" : response.getStatus().toUpperCase();
+
+        if (SUCCESS_STATUSES.contains(status) || FAILURE_STATUSES.contains(status)) {
+            // Same conditional PENDING update as the webhook, so whichever arrives second is a no-op
+            paymentService.handleOnePipeCallback(reference, response.getStatus(),
+                    "Mandate debit: " + response.getMessage());
+            return SUCCESS_STATUSES.contains(status) ? PAID : DECLINED;
+        }
+        return SUBMITTED;
+    }
+
+    private Mono<Void> acquirePermit() {
+        return Mono.fromCallable(() -> rateLimiter.tryAcquire(
+                        RATE_LIMIT_KEY, properties.getRatePerSecond(), Duration.ofSeconds(1)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(waitMillis -> waitMillis == 0
+                        ? Mono.<Void>empty()
+                        : Mono.delay(Duration.ofMillis(waitMillis)).then(Mono.defer(this::acquirePermit)));
+    }
+}
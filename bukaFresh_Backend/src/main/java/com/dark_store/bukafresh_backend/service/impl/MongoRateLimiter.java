@@ -0,0 +1,52 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.model.RateLimitWindow;
+import com.dark_store.bukafresh_backend.service.RateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Cluster-wide limits using one fixed-window counter document per key, incremented with a single
+ * upsert. Windows are purged by a TTL index shortly after they close.
+ */
+@Service
+@ConditionalOnProperty(name = "rate-limit.mode", havingValue = "mongo")
+@RequiredArgsConstructor
+public class MongoRateLimiter implements RateLimiter {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public long tryAcquire(String key, int capacity, Duration period) {
+        long nowMillis = System.currentTimeMillis();
+        long periodMillis = period.toMillis();
+        long windowIndex = nowMillis / periodMillis;
+        long windowEnd = (windowIndex + 1) * periodMillis;
+
+        Query query = Query.query(Criteria.where("_id").is(key + ":" + windowIndex));
+        Update update = new Update()
+                .inc("count", 1)
+                .setOnInsert("expiresAt", Instant.ofEpochMilli(windowEnd).plus(period));
+
+        RateLimitWindow window = mongoTemplate.findAndModify(
+                query,
+                update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                RateLimitWindow.class
+        );
+
+        if (window == null || window.getCount() <= capacity) {
+            return 0;
+        }
+        return Math.max(1, windowEnd - nowMillis);
+    }
+}
@@ -7,6 +7,8 @@ import com.dark_store.bukafresh_backend.model.Profile;
 import com.dark_store.bukafresh_backend.repository.ProfileRepository;
 import com.dark_store.bukafresh_backend.service.OnePipeService;
 import com.dark_store.bukafresh_backend.service.SecurityAlertService;
+import com.dark_store.bukafresh_backend.service.clients.OnePipeCollectClient;
+import com.dark_store.bukafresh_backend.service.clients.OnePipeQueryClient;
 import com.dark_store.bukafresh_backend.service.clients.OnePipeSendInvoiceClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +28,8 @@ import static com.dark_store.bukafresh_backend.util.DateFormater.ONEPIPE_DATE_FO
 public class OnePipeServiceImpl implements OnePipeService {
 
     private final OnePipeSendInvoiceClient sendInvoiceClient;
+    private final OnePipeQueryClient queryClient;
+    private final OnePipeCollectClient collectClient;
     private final ProfileRepository profileRepository;
     private final SecurityAlertService securityAlertService;
 
@@ -75,6 +79,29 @@ public class OnePipeServiceImpl implements OnePipeService {
                 .doOnError(e -> log.error("Subscription invoice failed for paymentReference={}", paymentReference, e));
     }
 
+    @Override
+    public Mono<OnePipeResponse> queryTransaction(String paymentReference, String requestType) {
+        return queryClient.queryTransaction(paymentReference, requestType);
+    }
+
+    @Override
+    public Mono<OnePipeResponse> collect(String userId, String mandateId, String paymentReference, BigDecimal amount) {
+        long amountInKobo = amount.multiply(new BigDecimal("100")).longValueExact();
+
+        return Mono.fromCallable(() -> profileRepository.findByUserId(userId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Profile not found")))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(profile -> collectClient.collect(
+                        mandateId,
+                        paymentReference,
+                        amountInKobo,
+                        profile.getFirstName(),
+                        profile.getLastName(),
+                        profile.getPhone()
+                ))
+                .doOnError(e -> log.error("Mandate debit failed for paymentReference={}", paymentReference, e));
+    }
+
     private String buildCustomerMessage(Profile profile, OnePipeResponse response) {
         var provider = response.getData().getProvider_response();
         return String.format(
@@ -0,0 +1,221 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.config.PaymentEventsProperties;
+import com.dark_store.bukafresh_backend.dto.event.PaymentFailedEvent;
+import com.dark_store.bukafresh_backend.dto.event.PaymentSucceededEvent;
+import com.dark_store.bukafresh_backend.model.OutboxEvent;
+import com.dark_store.bukafresh_backend.model.Payment;
+import com.dark_store.bukafresh_backend.service.PaymentOutboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relays outbox events embedded in payments to Kafka. A batch is claimed under a lease, every
+ * event in it is sent before any ack is awaited so the producer can batch them, and only events
+ * the broker acknowledged are removed. Anything else stays pending and is picked up again when the
+ * lease runs out, so delivery is at-least-once and consumers are idempotent. Sending and waiting
+ * for acks together stay within half the lease, and a send that fails straight away (broker
+ * unreachable, buffer full) ends the batch, so a claim is never still publishing once another node
+ * can take it over.
+ */
+@Service
+@Slf4j
+public class PaymentOutboxServiceImpl implements PaymentOutboxService {
+
+    private final MongoTemplate mongoTemplate;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final PaymentEventsProperties properties;
+
+    private final Counter published;
+    private final Counter failed;
+    private final Timer lag;
+
+    public PaymentOutboxServiceImpl(MongoTemplate mongoTemplate,
+                                    KafkaTemplate<String, Object> kafkaTemplate,
+                                    PaymentEventsProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.properties = properties;
+
+        this.published = Counter.builder("payment.outbox.published").tag("result", "success").register(meterRegistry);
+        this.failed = Counter.builder("payment.outbox.published").tag("result", "failure").register(meterRegistry);
+        // Time from the payment status change to the broker ack
+        this.lag = Timer.builder("payment.outbox.lag")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int relayBatch() {
+        List<Payment> batch = claimBatch();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        long deadline = System.nanoTime() + properties.getOutbox().getLease().toNanos() / 2;
+        List<PendingSend> sends = sendAll(batch, deadline);
+
+        CompletableFuture<?> all = CompletableFuture.allOf(sends.stream()
+                .map(PendingSend::result)
+                .toArray(CompletableFuture[]::new));
+        long ackWait = Math.min(properties.getOutbox().getSendTimeout().toNanos(),
+                Math.max(0, deadline - System.nanoTime()));
+        try {
+            all.get(ackWait, TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            // Some sends failed or timed out; the ones that did complete are still cleared below
+            log.warn("Payment outbox batch not fully acknowledged: {}", e.getMessage());
+        }
+
+        for (PendingSend send : sends) {
+            if (send.acknowledged()) {
+                markPublished(send.payment(), send.event());
+            } else {
+                failed.increment();
+            }
+        }
+        return batch.size();
+    }
+
+    // Events not sent here stay in the outbox and go out once the claim's lease expires
+    private List<PendingSend> sendAll(List<Payment> batch, long deadline) {
+        long maxBlock = properties.getOutbox().getMaxBlock().toNanos();
+        List<PendingSend> sends = new ArrayList<>();
+
+        for (Payment payment : batch) {
+            for (OutboxEvent event : payment.getOutbox()) {
+                // One more send may block for max.block.ms, which must not run past the deadline
+                if (System.nanoTime() + maxBlock > deadline) {
+                    log.warn("Payment outbox batch out of time after {} sends", sends.size());
+                    return sends;
+                }
+
+                PendingSend pending = new PendingSend(payment, event, send(payment, event));
+                sends.add(pending);
+                if (pending.result().isCompletedExceptionally()) {
+                    // The rest of the batch would only block on the same broker or buffer
+                    log.warn("Payment outbox send failed immediately, stopping the batch after {} sends",
+                            sends.size());
+                    return sends;
+                }
+            }
+        }
+        return sends;
+    }
+
+    private List<Payment> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        Query candidates = Query.query(claimable(now)).limit(properties.getOutbox().getBatchSize());
+        candidates.fields().include("_id");
+
+        List<String> ids = mongoTemplate.find(candidates, Payment.class).stream()
+                .map(Payment::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Another node may claim some of these ids first; the re-checked filter leaves those alone
+        String claimId = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                Query.query(new Criteria().andOperator(Criteria.where("_id").in(ids), claimable(now))),
+                new Update()
+                        .set("outboxClaimId", claimId)
+                        .set("outboxLeaseExpiresAt", now.plus(properties.getOutbox().getLease())),
+                Payment.class
+        );
+
+        return mongoTemplate.find(Query.query(Criteria.where("outboxClaimId").is(claimId)), Payment.class);
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(Payment payment, OutboxEvent event) {
+        try {
+            return switch (event.getType()) {
+                case OutboxEvent.PAYMENT_SUCCEEDED -> kafkaTemplate.send(
+                        properties.getPaymentSucceededTopic(),
+                        payment.getSubscriptionId(),
+                        new PaymentSucceededEvent(
+                                event.getEventId(),
+                                payment.getId(),
+                                payment.getPaymentReference(),
+                                payment.getSubscriptionId(),
+                                payment.getUserId(),
+                                payment.getAmount(),
+                                payment.getPaidAt()
+                        ));
+                case OutboxEvent.PAYMENT_FAILED -> kafkaTemplate.send(
+                        properties.getPaymentFailedTopic(),
+                        payment.getSubscriptionId(),
+                        new PaymentFailedEvent(
+                                event.getEventId(),
+                                payment.getId(),
+                                payment.getPaymentReference(),
+                                payment.getSubscriptionId(),
+                                payment.getUserId(),
+                                payment.getAmount(),
+                                payment.getFailureReason()
+                        ));
+                default -> CompletableFuture.failedFuture(
+                        new IllegalStateException("Unknown outbox event type " + event.getType()));
+            };
+        } catch (Exception e) {
+            // Serialization errors and a full producer buffer are thrown rather than returned
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void markPublished(Payment payment, OutboxEvent event) {
+        // The transition out of PENDING is the only writer of the outbox and happens once per
+        // payment, so once its event is gone nothing else can be pending
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(payment.getId())
+                        .and("outboxClaimId").is(payment.getOutboxClaimId())),
+                new Update()
+                        .pull("outbox", new Document("eventId", event.getEventId()))
+                        .unset("outboxPending")
+                        .unset("outboxClaimId")
+                        .unset("outboxLeaseExpiresAt"),
+                Payment.class
+        );
+
+        published.increment();
+        if (event.getCreatedAt() != null) {
+            lag.record(Duration.between(event.getCreatedAt(), LocalDateTime.now()));
+        }
+    }
+
+    private Criteria claimable(LocalDateTime now) {
+        return Criteria.where("outboxPending").is(true).orOperator(
+                Criteria.where("outboxLeaseExpiresAt").exists(false),
+                Criteria.where("outboxLeaseExpiresAt").lt(now)
+        );
+    }
+
+    private record PendingSend(Payment payment,
+                               OutboxEvent event,
+                               CompletableFuture<SendResult<String, Object>> result) {
+
+        boolean acknowledged() {
+            return result.isDone() && !result.isCompletedExceptionally();
+        }
+    }
+}
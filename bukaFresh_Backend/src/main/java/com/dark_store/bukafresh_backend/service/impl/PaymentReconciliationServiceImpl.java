@@ -0,0 +1,191 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.config.PaymentReconciliationProperties;
+import com.dark_store.bukafresh_backend.dto.onePipe.response.OnePipeResponse;
+import com.dark_store.bukafresh_backend.model.JobCheckpoint;
+import com.dark_store.bukafresh_backend.model.Payment;
+import com.dark_store.bukafresh_backend.repository.JobCheckpointRepository;
+import com.dark_store.bukafresh_backend.service.OnePipeService;
+import com.dark_store.bukafresh_backend.service.PaymentReconciliationService;
+import com.dark_store.bukafresh_backend.service.PaymentService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Sweeps payments whose OnePipe webhook never arrived. PENDING payments older than the stale
+ * threshold are read through a cursor in (createdAt, _id) order, checked against OnePipe with
+ * bounded concurrency, and settled through {@link PaymentService#handleOnePipeCallback}, which
+ * applies the same conditional PENDING update as a real callback. The position after each
+ * finished batch is checkpointed, so a restart resumes instead of starting over.
+ */
+@Service
+@Slf4j
+public class PaymentReconciliationServiceImpl implements PaymentReconciliationService {
+
+    private static final String JOB_NAME = "payment-reconciliation";
+    private static final Set<String> SUCCESS_STATUSES = Set.of("SUCCESSFUL", "SUCCESS");
+    private static final Set<String> FAILURE_STATUSES = Set.of("FAILED", "DECLINED", "CANCELLED", "EXPIRED");
+
+    private final MongoTemplate mongoTemplate;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final OnePipeService onePipeService;
+    private final PaymentService paymentService;
+    private final PaymentReconciliationProperties properties;
+    private final Map<String, Counter> outcomes;
+
+    public PaymentReconciliationServiceImpl(MongoTemplate mongoTemplate,
+                                            JobCheckpointRepository jobCheckpointRepository,
+                                            OnePipeService onePipeService,
+                                            PaymentService paymentService,
+                                            PaymentReconciliationProperties properties,
+                                            MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.jobCheckpointRepository = jobCheckpointRepository;
+        this.onePipeService = onePipeService;
+        this.paymentService = paymentService;
+        this.properties = properties;
+        this.outcomes = Map.of(
+                "paid", outcomeCounter(meterRegistry, "paid"),
+                "failed", outcomeCounter(meterRegistry, "failed"),
+                "pending", outcomeCounter(meterRegistry, "pending"),
+                "error", outcomeCounter(meterRegistry, "error")
+        );
+    }
+
+    @Override
+    public int reconcileStalePayments(BooleanSupplier leaseHeld) {
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(JOB_NAME)
+                .orElseGet(() -> JobCheckpoint.builder().id(JOB_NAME).startedAt(Instant.now()).build());
+
+        int checked = 0;
+        boolean exhausted = false;
+
+        try (Stream<Payment> cursor = mongoTemplate.stream(stalePendingAfter(checkpoint), Payment.class)) {
+            Iterator<Payment> payments = cursor.iterator();
+
+            while (checked < properties.getMaxPerRun() && leaseHeld.getAsBoolean()) {
+                List<Payment> batch = nextBatch(payments);
+                if (batch.isEmpty()) {
+                    exhausted = true;
+                    break;
+                }
+
+                reconcileBatch(batch);
+                checked += batch.size();
+                if (!leaseHeld.getAsBoolean()) {
+                    // The checkpoint belongs to the node holding the lease now
+                    break;
+                }
+
+                Payment last = batch.get(batch.size() - 1);
+                checkpoint.setLastSortValue(last.getCreatedAt());
+                checkpoint.setLastDocumentId(last.getId());
+                checkpoint.setProcessed(checkpoint.getProcessed() + batch.size());
+                checkpoint.setUpdatedAt(Instant.now());
+                jobCheckpointRepository.save(checkpoint);
+            }
+        }
+
+        if (exhausted) {
+            // Full pass done; anything still PENDING is picked up again from the start next run
+            log.info("Payment reconciliation pass complete, {} payments checked in total", checkpoint.getProcessed());
+            jobCheckpointRepository.deleteById(JOB_NAME);
+        }
+        return checked;
+    }
+
+    private Query stalePendingAfter(JobCheckpoint checkpoint) {
+        Criteria criteria = Criteria.where("status").is("PENDING")
+                .and("createdAt").lt(LocalDateTime.now().minus(properties.getStaleAfter()));
+
+        if (checkpoint.getLastSortValue() != null) {
+            criteria = new Criteria().andOperator(criteria, new Criteria().orOperator(
+                    Criteria.where("createdAt").gt(checkpoint.getLastSortValue()),
+                    Criteria.where("createdAt").is(checkpoint.getLastSortValue())
+                            .and("_id").gt(checkpoint.getLastDocumentId())
+            ));
+        }
+
+        Query query = Query.query(criteria)
+                .with(Sort.by("createdAt", "_id"))
+                .cursorBatchSize(properties.getBatchSize());
+        query.fields().include("_id", "paymentReference", "idempotencyKey", "createdAt");
+        return query;
+    }
+
+    private List<Payment> nextBatch(Iterator<Payment> payments) {
+        List<Payment> batch = new ArrayList<>(properties.getBatchSize());
+        while (batch.size() < properties.getBatchSize() && payments.hasNext()) {
+            batch.add(payments.next());
+        }
+        return batch;
+    }
+
+    private void reconcileBatch(List<Payment> batch) {
+        Flux.fromIterable(batch)
+                .flatMap(this::reconcile, properties.getConcurrency())
+                .then()
+                .block(properties.getBatchTimeout());
+    }
+
+    private Mono<Void> reconcile(Payment payment) {
+        String reference = payment.getPaymentReference();
+
+        return onePipeService.queryTransaction(reference, requestType(payment))
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(response -> apply(reference, response))
+                .onErrorResume(e -> {
+                    outcomes.get("error").increment();
+                    log.warn("Could not reconcile payment {}: {}", reference, e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    // Billing and dunning payments are mandate debits; everything else went out as an invoice
+    private static String requestType(Payment payment) {
+        String key = payment.getIdempotencyKey();
+        if (key != null && (key.startsWith(PaymentService.CYCLE_KEY_PREFIX)
+                || key.startsWith(PaymentService.RETRY_KEY_PREFIX))) {
+            return OnePipeService.COLLECT;
+        }
+        return OnePipeService.SEND_INVOICE;
+    }
+
+    private void apply(String reference, OnePipeResponse response) {
+        String status = response.getStatus() == null ? "" : response.getStatus().toUpperCase();
+
+        if (SUCCESS_STATUSES.contains(status) || FAILURE_STATUSES.contains(status)) {
+            paymentService.handleOnePipeCallback(reference, response.getStatus(),
+                    "Reconciled via status query: " + response.getMessage());
+            outcomes.get(SUCCESS_STATUSES.contains(status) ? "paid" : "failed").increment();
+        } else {
+            outcomes.get("pending").increment();
+        }
+    }
+
+    private static Counter outcomeCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("payment.reconciliation.checked")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
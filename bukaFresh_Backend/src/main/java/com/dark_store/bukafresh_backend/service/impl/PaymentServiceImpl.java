@@ -4,17 +4,19 @@ import com.dark_store.bukafresh_backend.dto.request.CreatePaymentMandateRequest;
 import com.dark_store.bukafresh_backend.dto.response.PaymentResponse;
 import com.dark_store.bukafresh_backend.exception.BusinessException;
 import com.dark_store.bukafresh_backend.exception.ResourceNotFoundException;
+import com.dark_store.bukafresh_backend.exception.ServiceBusyException;
+import com.dark_store.bukafresh_backend.model.OutboxEvent;
 import com.dark_store.bukafresh_backend.model.Payment;
 import com.dark_store.bukafresh_backend.model.Subscription;
 import com.dark_store.bukafresh_backend.repository.PaymentRepository;
 import com.dark_store.bukafresh_backend.repository.SubscriptionRepository;
-import com.dark_store.bukafresh_backend.service.DeliveryService;
+import com.dark_store.bukafresh_backend.service.BackgroundTaskService;
 import com.dark_store.bukafresh_backend.service.OnePipeService;
 import com.dark_store.bukafresh_backend.service.PaymentService;
 import com.dark_store.bukafresh_backend.util.CurrentUserUtil;
-import com.mongodb.DuplicateKeyException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -22,13 +24,10 @@ import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.TemporalAdjusters;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -42,7 +41,7 @@ public class PaymentServiceImpl implements PaymentService {
     private final PaymentRepository paymentRepository;
     private final SubscriptionRepository subscriptionRepository;
     private final OnePipeService onePipeService;
-    private final DeliveryService deliveryService;
+    private final BackgroundTaskService backgroundTaskService;
 
 //    private static final Set<String> TERMINAL_STATES = Set.of("PAID", "FAILED");
 
@@ -57,17 +56,11 @@ public class PaymentServiceImpl implements PaymentService {
         }
 
         String userId = CurrentUserUtil.getCurrentUserId();
+        // Namespaced per user, so any client key is valid and none can match a billing or dunning key
+        String storedKey = CLIENT_KEY_PREFIX + userId + ":" + idempotencyKey;
 
-
-        Payment existingPayment =
-                paymentRepository.findByIdempotencyKey(idempotencyKey).orElse(null);
-
-        if (existingPayment != null) {
-            log.info("Idempotent replay detected. key={}, paymentRef={}",
-                    idempotencyKey, existingPayment.getPaymentReference());
-            return mapToResponse(existingPayment);
-        }
-
+        // Retries with the same key are answered by IdempotencyFilter; the unique index on
+        // idempotencyKey below only covers the case where both requests got past it at once
         Subscription subscription = subscriptionRepository.findById(request.getSubscriptionId())
                 .orElseThrow(() -> new ResourceNotFoundException("Subscription not found"));
 
@@ -89,7 +82,7 @@ public class PaymentServiceImpl implements PaymentService {
                 .currency("NGN")
                 .status("PENDING")
                 .paymentReference(paymentReference)
-                .idempotencyKey(idempotencyKey)
+                .idempotencyKey(storedKey)
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
@@ -100,22 +93,81 @@ public class PaymentServiceImpl implements PaymentService {
             log.info("Duplicate idempotency key detected during save. key={}", idempotencyKey);
 
             return mapToResponse(
-                    paymentRepository.findByIdempotencyKey(idempotencyKey)
+                    paymentRepository.findByIdempotencyKey(storedKey)
                             .orElseThrow(() -> new IllegalStateException(
                                     "Payment exists but cannot be found"))
             );
         }
 
-        onePipeService.sendInvoice(userId, paymentReference, payment.getAmount(),request)
-                .subscribe(
-                        r -> log.info("OnePipe invoice request sent for payment={}", paymentReference),
-                        e -> log.error("Failed to initiate OnePipe payment", e)
-                );
+        try {
+            backgroundTaskService.submit(
+                    "onepipe-invoice",
+                    "invoice for payment " + paymentReference,
+                    onePipeService.sendInvoice(userId, paymentReference, payment.getAmount(), request)
+                            .doOnNext(r -> log.info("OnePipe invoice request sent for payment={}", paymentReference))
+            );
+        } catch (ServiceBusyException e) {
+            // No invoice went out; remove the payment so the client's retry under the same key
+            // (which the 503 asks for) creates it again instead of finding a dead one
+            mongoTemplate.remove(
+                    Query.query(Criteria.where("_id").is(payment.getId()).and("status").is("PENDING")),
+                    Payment.class
+            );
+            throw e;
+        }
 
         return mapToResponse(payment);
     }
 
 
+    @Override
+    public CyclePayment createCyclePayment(Subscription subscription, LocalDate billingDate) {
+        // One key per subscription and cycle, so a resumed or overlapping billing run finds the
+        // payment it already made instead of charging again
+        String idempotencyKey = CYCLE_KEY_PREFIX + subscription.getId() + ":" + billingDate;
+
+        Payment payment = Payment.builder()
+                .userId(subscription.getUserId())
+                .subscriptionId(subscription.getId())
+                .amount(getSubscriptionAmount(subscription.getTier(), subscription.getBillingCycle()))
+                .currency("NGN")
+                .status("PENDING")
+                .paymentReference(generatePaymentReference())
+                .idempotencyKey(idempotencyKey)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+
+        return insertOnce(payment);
+    }
+
+    @Override
+    public CyclePayment createRetryPayment(Payment failed, int attempt) {
+        Payment payment = Payment.builder()
+                .userId(failed.getUserId())
+                .subscriptionId(failed.getSubscriptionId())
+                .amount(failed.getAmount())
+                .currency(failed.getCurrency())
+                .status("PENDING")
+                .paymentReference(generatePaymentReference())
+                .idempotencyKey(RETRY_KEY_PREFIX + failed.getId() + ":" + attempt)
+                .retryOf(failed.getId())
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+
+        return insertOnce(payment);
+    }
+
+    private CyclePayment insertOnce(Payment payment) {
+        try {
+            return new CyclePayment(paymentRepository.insert(payment), true);
+        } catch (DuplicateKeyException e) {
+            return new CyclePayment(paymentRepository.findByIdempotencyKey(payment.getIdempotencyKey())
+                    .orElseThrow(() -> new IllegalStateException("Payment exists but cannot be found")), false);
+        }
+    }
+
     @Override
     public PaymentResponse getPaymentById(String paymentId) {
         Payment payment = paymentRepository.findById(paymentId)
@@ -146,7 +198,6 @@ public class PaymentServiceImpl implements PaymentService {
     }
 
     @Override
-    @Transactional
     public PaymentResponse handleOnePipeCallback(String paymentReference,
                                                  String status,
                                                  String responseSummary) {
@@ -176,40 +227,9 @@ public class PaymentServiceImpl implements PaymentService {
             return mapToResponse(existing);
         }
 
-        if (successful) {
-            Subscription subscription = subscriptionRepository
-                    .findById(updatedPayment.getSubscriptionId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Subscription not found for payment: " + paymentReference
-                    ));
-
-            if (!"ACTIVE".equals(subscription.getStatus())) {
-
-                if ("WEEKLY".equalsIgnoreCase(subscription.getBillingCycle())) {
-                    subscription.setMaxDeliveriesPerMonth(4);
-                } else {
-                    subscription.setMaxDeliveriesPerMonth(1);
-                }
-
-                subscription.setNextDeliveryDate(calculateFirstDeliveryDate(
-                        subscription.getBillingCycle(),
-                        subscription.getDeliveryDay()
-                ));
-
-                subscription.setStatus("ACTIVE");
-                subscription.setUpdatedAt(LocalDateTime.now());
-                subscriptionRepository.save(subscription);
-                
-                // Create delivery after successful payment
-                try {
-                    deliveryService.createDeliveryFromPayment(updatedPayment.getId(), subscription.getId());
-                    log.info("Delivery created successfully for payment: {}", paymentReference);
-                } catch (Exception e) {
-                    log.error("Failed to create delivery for payment: {}", paymentReference, e);
-                    // Don't fail the payment process if delivery creation fails
-                }
-            }
-        }
+        // Subscription activation and the first delivery follow from the outbox event written
+        // with the status change; see PaymentOutboxServiceImpl and the saga listeners
+        log.info("Payment {} marked {}", paymentReference, updatedPayment.getStatus());
 
         return mapToResponse(updatedPayment);
     }
@@ -286,6 +306,15 @@ public class PaymentServiceImpl implements PaymentService {
             update.set("failureReason", failureReason);
         }
 
+        // Outbox event in the same single-document update as the transition, so the event
+        // exists exactly when the payment has left PENDING
+        update.push("outbox", OutboxEvent.builder()
+                        .eventId(UUID.randomUUID().toString())
+                        .type(successful ? OutboxEvent.PAYMENT_SUCCEEDED : OutboxEvent.PAYMENT_FAILED)
+                        .createdAt(LocalDateTime.now())
+                        .build())
+                .set("outboxPending", true);
+
         return mongoTemplate.findAndModify(
                 query,
                 update,
@@ -295,24 +324,4 @@ public class PaymentServiceImpl implements PaymentService {
         );
     }
 
-    private LocalDate calculateFirstDeliveryDate(String deliveryFrequency, String deliveryDay) {
-        LocalDate today = LocalDate.now();
-        DayOfWeek targetDay = DayOfWeek.valueOf(deliveryDay.toUpperCase());
-
-        LocalDate nextDeliveryDay = today.with(TemporalAdjusters.nextOrSame(targetDay));
-
-        if ("MONTHLY".equalsIgnoreCase(deliveryFrequency)) {
-
-            if (nextDeliveryDay.getMonth() == today.getMonth()) {
-                return nextDeliveryDay;
-            } else {
-                return today.with(TemporalAdjusters.firstDayOfNextMonth())
-                        .with(TemporalAdjusters.nextOrSame(targetDay));
-            }
-        } else {
-            return nextDeliveryDay;
-        }
-    }
-
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,178 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.exception.InvalidRefreshTokenException;
+import com.dark_store.bukafresh_backend.model.RefreshToken;
+import com.dark_store.bukafresh_backend.repository.RefreshTokenRepository;
+import com.dark_store.bukafresh_backend.service.RefreshTokenService;
+import com.dark_store.bukafresh_backend.service.TokenVersionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Opaque refresh tokens stored as SHA-256 digests in {@code refresh_tokens}. Each exchange marks
+ * the presented token as rotated with a single conditional update and issues its successor in the
+ * same family. A rotated token showing up again means it was copied, so the family and the user's
+ * access tokens are revoked, unless it is the immediately previous token presented within a few
+ * seconds of its exchange (two tabs refreshing together, a retry after a timeout).
+ */
+@Service
+@Slf4j
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final MongoTemplate mongoTemplate;
+    private final TokenVersionService tokenVersionService;
+    private final Duration ttl;
+    private final Duration reuseGrace;
+    private final Counter reuseDetected;
+
+    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository,
+                                   MongoTemplate mongoTemplate,
+                                   TokenVersionService tokenVersionService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${jwt.refresh-token-ttl:P30D}") Duration ttl,
+                                   @Value("${jwt.refresh-reuse-grace:PT10S}") Duration reuseGrace) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.tokenVersionService = tokenVersionService;
+        this.ttl = ttl;
+        this.reuseGrace = reuseGrace;
+        this.reuseDetected = Counter.builder("jwt.refresh.reuse_detected").register(meterRegistry);
+    }
+
+    @Override
+    public String issue(String userId) {
+        return store(userId, UUID.randomUUID().toString());
+    }
+
+    @Override
+    public RotatedRefreshToken rotate(String refreshToken) {
+        String digest = digest(refreshToken);
+        Instant now = Instant.now();
+
+        Query query = Query.query(Criteria.where("_id").is(digest)
+                .and("rotatedAt").is(null)
+                .and("revoked").is(false)
+                .and("expiresAt").gt(now));
+
+        RefreshToken current = mongoTemplate.findAndModify(
+                query,
+                new Update().set("rotatedAt", now),
+                FindAndModifyOptions.options().returnNew(true),
+                RefreshToken.class
+        );
+
+        if (current == null) {
+            RefreshToken rotated = refreshTokenRepository.findById(digest)
+                    .filter(token -> token.getRotatedAt() != null)
+                    .orElse(null);
+            if (rotated != null && withinReuseGrace(rotated, now)) {
+                // The successor cannot be handed out again (only its digest is kept), so this
+                // caller gets a sibling in the same family
+                return new RotatedRefreshToken(rotated.getUserId(), store(rotated.getUserId(), rotated.getFamilyId()));
+            }
+            if (rotated != null) {
+                handleReuse(rotated);
+            }
+            throw new InvalidRefreshTokenException("Invalid or expired refresh token");
+        }
+
+        String next = store(current.getUserId(), current.getFamilyId());
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(digest)),
+                new Update().set("successorId", digest(next)),
+                RefreshToken.class
+        );
+        return new RotatedRefreshToken(current.getUserId(), next);
+    }
+
+    // Just exchanged, still live, and its successor has not moved on yet
+    private boolean withinReuseGrace(RefreshToken rotated, Instant now) {
+        if (Boolean.TRUE.equals(rotated.getRevoked())
+                || !rotated.getExpiresAt().isAfter(now)
+                || rotated.getRotatedAt().isBefore(now.minus(reuseGrace))) {
+            return false;
+        }
+        if (rotated.getSuccessorId() == null) {
+            // Exchanged a moment ago and the successor is still being written
+            return true;
+        }
+        return refreshTokenRepository.findById(rotated.getSuccessorId())
+                .map(successor -> successor.getRotatedAt() == null && !Boolean.TRUE.equals(successor.getRevoked()))
+                .orElse(false);
+    }
+
+    @Override
+    public void revokeFamily(String refreshToken) {
+        refreshTokenRepository.findById(digest(refreshToken))
+                .ifPresent(token -> revoke(Criteria.where("familyId").is(token.getFamilyId())));
+    }
+
+    @Override
+    public void revokeAllForUser(String userId) {
+        revoke(Criteria.where("userId").is(userId));
+    }
+
+    private void handleReuse(RefreshToken reused) {
+        reuseDetected.increment();
+        log.warn("Refresh token reuse detected for user {} (family {}); revoking its sessions",
+                reused.getUserId(), reused.getFamilyId());
+
+        revoke(Criteria.where("familyId").is(reused.getFamilyId()));
+        tokenVersionService.revokeAllTokens(reused.getUserId());
+    }
+
+    private void revoke(Criteria criteria) {
+        mongoTemplate.updateMulti(
+                Query.query(criteria.and("revoked").is(false)),
+                new Update().set("revoked", true),
+                RefreshToken.class
+        );
+    }
+
+    private String store(String userId, String familyId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = ENCODER.encodeToString(bytes);
+        Instant now = Instant.now();
+
+        refreshTokenRepository.insert(RefreshToken.builder()
+                .id(digest(token))
+                .userId(userId)
+                .familyId(familyId)
+                .createdAt(now)
+                .expiresAt(now.plus(ttl))
+                .build());
+        return token;
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.config.SettlementProperties;
+import com.dark_store.bukafresh_backend.dto.response.SettlementReconciliationResponse;
+import com.dark_store.bukafresh_backend.exception.BusinessException;
+import com.dark_store.bukafresh_backend.exception.ResourceNotFoundException;
+import com.dark_store.bukafresh_backend.model.Payment;
+import com.dark_store.bukafresh_backend.model.SettlementReference;
+import com.dark_store.bukafresh_backend.service.SettlementReconciliationService;
+import lombok.RequiredArgsConstructor;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Streams a OnePipe settlement CSV and joins it against {@code payments} one chunk at a time:
+ * the chunk's rows are indexed by reference in a HashMap, a single {@code $in} query fetches the
+ * matching payments by paymentReference or onePipeReference, and discrepancies are written to the
+ * report as they are found. Only one chunk of rows is ever held in memory. Repeats within a chunk
+ * are caught by the index; repeats across chunks by inserting the chunk's references into
+ * {@code settlement_references} under the run's id, where the unique _id rejects one already seen.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SettlementReconciliationServiceImpl implements SettlementReconciliationService {
+
+    private static final Set<String> REFERENCE_COLUMNS = Set.of("transaction_ref", "payment_reference", "reference");
+    private static final Set<String> AMOUNT_COLUMNS = Set.of("amount", "transaction_amount", "settled_amount");
+    private static final Set<String> STATUS_COLUMNS = Set.of("status", "transaction_status");
+    private static final Set<String> PAID_STATUSES = Set.of("SUCCESSFUL", "SUCCESS", "SETTLED", "PAID");
+    private static final Set<String> FAILED_STATUSES = Set.of("FAILED", "DECLINED", "REVERSED");
+    private static final BigDecimal KOBO_PER_NAIRA = new BigDecimal("100");
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private enum Discrepancy { MISSING, AMOUNT_MISMATCH, STATUS_MISMATCH, DUPLICATE, MALFORMED }
+
+    private record Row(long lineNumber, String reference, BigDecimal amount, String status) {}
+
+    private static final class Totals {
+        long rowsRead;
+        long matched;
+        final Map<Discrepancy, Long> discrepancies = new HashMap<>();
+
+        void count(Discrepancy type) {
+            discrepancies.merge(type, 1L, Long::sum);
+        }
+
+        long of(Discrepancy type) {
+            return discrepancies.getOrDefault(type, 0L);
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final SettlementProperties properties;
+
+    @Override
+    public SettlementReconciliationResponse reconcile(String fileName) {
+        Path inbox = Paths.get(properties.getInboxDir()).toAbsolutePath().normalize();
+        Path settlementFile = inbox.resolve(fileName).normalize();
+
+        if (!settlementFile.startsWith(inbox)) {
+            throw new BusinessException("Settlement file must be inside the settlement inbox");
+        }
+        if (!Files.isRegularFile(settlementFile)) {
+            throw new ResourceNotFoundException("Settlement file not found: " + fileName);
+        }
+
+        Path reportFile = inbox.resolve(settlementFile.getFileName() + ".discrepancies-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")) + ".csv");
+        String runId = UUID.randomUUID().toString();
+        Totals totals = new Totals();
+
+        try (BufferedReader reader = Files.newBufferedReader(settlementFile, StandardCharsets.UTF_8);
+             BufferedWriter report = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8)) {
+
+            report.write("line,reference,discrepancy,settlement_amount,payment_amount,settlement_status,payment_status");
+            report.newLine();
+
+            String header = reader.readLine();
+            if (header == null) {
+                throw new BusinessException("Settlement file is empty");
+            }
+            List<String> columns = parseLine(header).stream()
+                    .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                    .toList();
+            int referenceColumn = indexOf(columns, REFERENCE_COLUMNS);
+            int amountColumn = indexOf(columns, AMOUNT_COLUMNS);
+            int statusColumn = indexOf(columns, STATUS_COLUMNS);
+
+            List<Row> chunk = new ArrayList<>(properties.getChunkSize());
+            long lineNumber = 1;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                totals.rowsRead++;
+
+                Row row = toRow(lineNumber, parseLine(line), referenceColumn, amountColumn, statusColumn);
+                if (row == null) {
+                    totals.count(Discrepancy.MALFORMED);
+                    writeLine(report, lineNumber, "", Discrepancy.MALFORMED, null, null, null, null);
+                    continue;
+                }
+
+                chunk.add(row);
+                if (chunk.size() == properties.getChunkSize()) {
+                    joinChunk(runId, chunk, report, totals);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                joinChunk(runId, chunk, report, totals);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to reconcile settlement file " + fileName, e);
+        } finally {
+            mongoTemplate.remove(Query.query(Criteria.where("runId").is(runId)), SettlementReference.class);
+        }
+
+        log.info("Settlement {} reconciled: {} rows, {} matched, {} missing, {} amount and {} status mismatches, {} duplicates",
+                fileName, totals.rowsRead, totals.matched, totals.of(Discrepancy.MISSING),
+                totals.of(Discrepancy.AMOUNT_MISMATCH), totals.of(Discrepancy.STATUS_MISMATCH),
+                totals.of(Discrepancy.DUPLICATE));
+
+        return SettlementReconciliationResponse.builder()
+                .settlementFile(settlementFile.getFileName().toString())
+                .reportFile(reportFile.getFileName().toString())
+                .rowsRead(totals.rowsRead)
+                .matched(totals.matched)
+                .missing(totals.of(Discrepancy.MISSING))
+                .amountMismatches(totals.of(Discrepancy.AMOUNT_MISMATCH))
+                .statusMismatches(totals.of(Discrepancy.STATUS_MISMATCH))
+                .duplicates(totals.of(Discrepancy.DUPLICATE))
+                .malformedRows(totals.of(Discrepancy.MALFORMED))
+                .build();
+    }
+
+    private void joinChunk(String runId, List<Row> chunk, BufferedWriter report, Totals totals) throws IOException {
+        // Build side: the chunk, keyed by the reference OnePipe reported; the first occurrence is joined
+        Map<String, Row> index = new HashMap<>(chunk.size() * 2);
+        for (Row row : chunk) {
+            if (index.putIfAbsent(row.reference(), row) != null) {
+                writeDuplicate(report, row, totals);
+            }
+        }
+        for (String reference : seenInEarlierChunks(runId, index.keySet())) {
+            writeDuplicate(report, index.remove(reference), totals);
+        }
+        if (index.isEmpty()) {
+            report.flush();
+            return;
+        }
+
+        Query query = Query.query(new Criteria().orOperator(
+                Criteria.where("paymentReference").in(index.keySet()),
+                Criteria.where("onePipeReference").in(index.keySet())
+        ));
+        query.fields().include("paymentReference", "onePipeReference", "amount", "status");
+
+        // Probe side: each payment removes its row, so whatever is left afterwards is missing
+        for (Payment payment : mongoTemplate.find(query, Payment.class)) {
+            Row row = index.remove(payment.getPaymentReference());
+            if (row == null && payment.getOnePipeReference() != null) {
+                row = index.remove(payment.getOnePipeReference());
+            }
+            if (row == null) {
+                continue;
+            }
+
+            if (payment.getAmount() == null || row.amount().compareTo(payment.getAmount()) != 0) {
+                totals.count(Discrepancy.AMOUNT_MISMATCH);
+                writeLine(report, row.lineNumber(), row.reference(), Discrepancy.AMOUNT_MISMATCH,
+                        row.amount(), payment.getAmount(), row.status(), payment.getStatus());
+            } else if (!normalizeStatus(row.status()).equals(payment.getStatus())) {
+                totals.count(Discrepancy.STATUS_MISMATCH);
+                writeLine(report, row.lineNumber(), row.reference(), Discrepancy.STATUS_MISMATCH,
+                        row.amount(), payment.getAmount(), row.status(), payment.getStatus());
+            } else {
+                totals.matched++;
+            }
+        }
+
+        for (Row row : index.values()) {
+            totals.count(Discrepancy.MISSING);
+            writeLine(report, row.lineNumber(), row.reference(), Discrepancy.MISSING,
+                    row.amount(), null, row.status(), null);
+        }
+        report.flush();
+    }
+
+    // Records the chunk's references for this run and returns those an earlier chunk already recorded
+    private Set<String> seenInEarlierChunks(String runId, Set<String> references) {
+        List<String> ordered = new ArrayList<>(references);
+        Instant now = Instant.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SettlementReference.class);
+        for (String reference : ordered) {
+            bulk.insert(SettlementReference.builder()
+                    .id(runId + ":" + reference)
+                    .runId(runId)
+                    .createdAt(now)
+                    .build());
+        }
+
+        try {
+            bulk.execute();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            Set<String> seen = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+                seen.add(ordered.get(error.getIndex()));
+            }
+            return seen;
+        }
+    }
+
+    private static void writeDuplicate(BufferedWriter report, Row row, Totals totals) throws IOException {
+        totals.count(Discrepancy.DUPLICATE);
+        writeLine(report, row.lineNumber(), row.reference(), Discrepancy.DUPLICATE,
+                row.amount(), null, row.status(), null);
+    }
+
+    private Row toRow(long lineNumber, List<String> fields, int referenceColumn, int amountColumn, int statusColumn) {
+        int required = Math.max(referenceColumn, Math.max(amountColumn, statusColumn));
+        if (fields.size() <= required || fields.get(referenceColumn).isBlank()) {
+            return null;
+        }
+        try {
+            BigDecimal amount = new BigDecimal(fields.get(amountColumn).trim());
+            if (properties.isAmountInKobo()) {
+                amount = amount.divide(KOBO_PER_NAIRA);
+            }
+            return new Row(lineNumber, fields.get(referenceColumn).trim(), amount, fields.get(statusColumn).trim());
+        } catch (NumberFormatException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private static String normalizeStatus(String settlementStatus) {
+        String status = settlementStatus.toUpperCase(Locale.ROOT);
+        if (PAID_STATUSES.contains(status)) {
+            return "PAID";
+        }
+        if (FAILED_STATUSES.contains(status)) {
+            return "FAILED";
+        }
+        return status;
+    }
+
+    private static int indexOf(List<String> columns, Set<String> candidates) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (candidates.contains(columns.get(i))) {
+                return i;
+            }
+        }
+        throw new BusinessException("Settlement file has no column named any of " + candidates);
+    }
+
+    // RFC 4180 fields: commas inside double quotes, "" for a literal quote
+    private static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static void writeLine(BufferedWriter report, long lineNumber, String reference, Discrepancy type,
+                                  BigDecimal settlementAmount, BigDecimal paymentAmount,
+                                  String settlementStatus, String paymentStatus) throws IOException {
+        report.write(lineNumber + "," + escape(reference) + "," + type + ","
+                + (settlementAmount == null ? "" : settlementAmount.toPlainString()) + ","
+                + (paymentAmount == null ? "" : paymentAmount.toPlainString()) + ","
+                + escape(settlementStatus) + "," + escape(paymentStatus));
+        report.newLine();
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -6,20 +6,32 @@ import com.dark_store.bukafresh_backend.exception.BusinessException;
 import com.dark_store.bukafresh_backend.exception.ResourceNotFoundException;
 import com.dark_store.bukafresh_backend.model.Address;
 import com.dark_store.bukafresh_backend.model.Subscription;
+import com.dark_store.bukafresh_backend.model.SubscriptionStatus;
+import com.dark_store.bukafresh_backend.model.SubscriptionTransition;
 import com.dark_store.bukafresh_backend.repository.AddressRepository;
 import com.dark_store.bukafresh_backend.repository.SubscriptionRepository;
 import com.dark_store.bukafresh_backend.service.SubscriptionService;
 import com.dark_store.bukafresh_backend.util.CurrentUserUtil;
+import com.dark_store.bukafresh_backend.util.StableHash;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.temporal.TemporalAdjusters;
 import java.util.List;
-import java.util.UUID;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
@@ -29,58 +41,65 @@ public class SubscriptionServiceImpl implements SubscriptionService {
 
     private final SubscriptionRepository subscriptionRepository;
     private final AddressRepository addressRepository;
+    private final MongoTemplate mongoTemplate;
 
     @Override
     public SubscriptionResponse createSubscription(CreateSubscriptionRequest request) {
         String userId = CurrentUserUtil.getCurrentUserId();
-        
-        // Check if user already has any subscription (active, pending, or inactive)
-        List<Subscription> existingSubscriptions = subscriptionRepository.findByUserId(userId);
-        boolean hasAnySubscription = existingSubscriptions.stream()
-                .anyMatch(sub -> "ACTIVE".equals(sub.getStatus()) || 
-                               "PENDING".equals(sub.getStatus()) || 
-                               "INACTIVE".equals(sub.getStatus()));
-        
-        if (hasAnySubscription) {
-            throw new BusinessException("User already has a subscription. Please complete payment for your existing subscription or delete it before creating a new one.");
-        }
 
-        try {
-            Subscription subscription = new Subscription();
-            subscription.setUserId(userId);
-            subscription.setTier(request.getTier());
-            subscription.setStatus("PENDING");
-            subscription.setPrice(request.getPrice());
-            subscription.setBillingCycle(request.getBillingCycle());
-            subscription.setNextBillingDate(calculateNextBillingDate(request.getBillingCycle()));
-            subscription.setCreatedAt(LocalDateTime.now());
-            subscription.setUpdatedAt(LocalDateTime.now());
-
-            Subscription savedSubscription = subscriptionRepository.save(subscription);
-
-            Address address = Address.builder()
-                    .street(request.getAddress().getStreet())
-                    .city(request.getAddress().getCity())
-                    .state(request.getAddress().getState())
-                    .userId(userId)
-                    .postalCode(request.getAddress().getPostalCode())
-                    .instructions(request.getAddress().getInstructions())
-                    .type(request.getAddress().getLabel())
-                    .isDefault(true)
-                    .build();
+        Subscription subscription = new Subscription();
+        // Id assigned here so the billing slot can be stored with the first write
+        subscription.setId(new ObjectId().toHexString());
+        subscription.setUserId(userId);
+        subscription.setUserBucket(StableHash.bucket(userId, Subscription.USER_BUCKETS));
+        subscription.setBillingSlot(StableHash.bucket(subscription.getId(), Subscription.BILLING_SLOTS));
+        subscription.setTier(request.getTier());
+        subscription.setStatus(SubscriptionStatus.PENDING);
+        subscription.setPrice(request.getPrice());
+        subscription.setBillingCycle(request.getBillingCycle());
+        subscription.setNextBillingDate(calculateNextBillingDate(request.getBillingCycle()));
+        subscription.setCreatedAt(LocalDateTime.now());
+        subscription.setUpdatedAt(LocalDateTime.now());
+        subscription.setTransitions(List.of(SubscriptionTransition.builder()
+                .status(SubscriptionStatus.PENDING)
+                .reason("created")
+                .at(subscription.getCreatedAt())
+                .build()));
 
-            addressRepository.save(address);
+        Address address = Address.builder()
+                .id(subscription.getId())
+                .street(request.getAddress().getStreet())
+                .city(request.getAddress().getCity())
+                .state(request.getAddress().getState())
+                .userId(userId)
+                .postalCode(request.getAddress().getPostalCode())
+                .instructions(request.getAddress().getInstructions())
+                .type(request.getAddress().getLabel())
+                .isDefault(true)
+                .build();
 
+        // The user_open_subscription index rejects a second ACTIVE, PENDING or INACTIVE
+        // subscription, so two concurrent requests cannot both get through
+        try {
+            subscriptionRepository.insert(subscription);
+        } catch (DuplicateKeyException e) {
+            throw new BusinessException("User already has a subscription. Please complete payment for your existing subscription or delete it before creating a new one.");
+        }
 
-            log.info("Created PENDING subscription {} for user {} with tier {} - requires payment to activate", 
-                    savedSubscription.getId(), userId, request.getTier());
-            
-            return mapToResponse(savedSubscription);
-            
+        // No multi-document transactions here: if the address cannot be written, remove the
+        // subscription again so the user is not left blocked by a subscription without an address
+        try {
+            addressRepository.insert(address);
         } catch (Exception e) {
+            subscriptionRepository.deleteById(subscription.getId());
             log.error("Failed to create subscription for user {}: {}", userId, e.getMessage());
             throw new BusinessException("Failed to create subscription: " + e.getMessage());
         }
+
+        log.info("Created PENDING subscription {} for user {} with tier {} - requires payment to activate",
+                subscription.getId(), userId, request.getTier());
+
+        return mapToResponse(subscription);
     }
 
     private LocalDate calculateNextBillingDate(String billingCycle) {
@@ -107,51 +126,185 @@ public class SubscriptionServiceImpl implements SubscriptionService {
 
     @Override
     public SubscriptionResponse updateSubscriptionStatus(String subscriptionId, String status) {
-        Subscription subscription = subscriptionRepository.findById(subscriptionId)
-                .orElseThrow(() -> new ResourceNotFoundException("Subscription not found"));
-        
-        subscription.setStatus(status);
-        subscription.setUpdatedAt(LocalDateTime.now());
-        
-        Subscription updatedSubscription = subscriptionRepository.save(subscription);
-        
-        log.info("Updated subscription {} status to {}", subscriptionId, status);
-        
-        return mapToResponse(updatedSubscription);
+        Set<String> sources = SubscriptionStatus.sourcesOf(status);
+        if (sources.isEmpty()) {
+            throw new BusinessException("Unsupported subscription status: " + status);
+        }
+
+        return mapToResponse(requireTransition(subscriptionId, sources, status, "status update", new Update()));
     }
 
     @Override
     public SubscriptionResponse pauseSubscription(String subscriptionId) {
-        return updateSubscriptionStatus(subscriptionId, "PAUSED");
+        return updateSubscriptionStatus(subscriptionId, SubscriptionStatus.PAUSED);
     }
 
     @Override
     public SubscriptionResponse resumeSubscription(String subscriptionId) {
-        return updateSubscriptionStatus(subscriptionId, "ACTIVE");
+        return mapToResponse(requireTransition(subscriptionId, Set.of(SubscriptionStatus.PAUSED),
+                SubscriptionStatus.ACTIVE, "resumed", new Update()));
     }
 
     @Override
     public SubscriptionResponse cancelSubscription(String subscriptionId) {
-        return updateSubscriptionStatus(subscriptionId, "CANCELED");
+        return mapToResponse(requireTransition(subscriptionId,
+                SubscriptionStatus.sourcesOf(SubscriptionStatus.CANCELED), SubscriptionStatus.CANCELED,
+                "canceled", new Update().set("canceledAt", LocalDateTime.now())));
     }
 
     @Override
     public SubscriptionResponse activateSubscription(String subscriptionId) {
+        Subscription activated = transition(subscriptionId, Set.of(SubscriptionStatus.PENDING),
+                SubscriptionStatus.ACTIVE, "activated", new Update());
+
+        if (activated == null) {
+            if (!subscriptionRepository.existsById(subscriptionId)) {
+                throw new ResourceNotFoundException("Subscription not found");
+            }
+            throw new BusinessException("Only pending subscriptions can be activated");
+        }
+
+        log.info("Activated subscription {} for user {}", subscriptionId, activated.getUserId());
+        return mapToResponse(activated);
+    }
+
+    @Override
+    public boolean activateFromPayment(String subscriptionId, String paymentId) {
         Subscription subscription = subscriptionRepository.findById(subscriptionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Subscription not found"));
-        
-        if (!"PENDING".equals(subscription.getStatus())) {
-            throw new BusinessException("Only pending subscriptions can be activated");
+
+        if (paymentId.equals(subscription.getActivatedByPaymentId())) {
+            return true;
         }
-        
-        subscription.setStatus("ACTIVE");
-        subscription.setUpdatedAt(LocalDateTime.now());
-        
-        Subscription activatedSubscription = subscriptionRepository.save(subscription);
-        
-        log.info("Activated subscription {} for user {}", subscriptionId, subscription.getUserId());
-        
-        return mapToResponse(activatedSubscription);
+
+        // A payment brings a new or suspended subscription back, never a paused or canceled one
+        Subscription activated = transition(subscriptionId,
+                Set.of(SubscriptionStatus.PENDING, SubscriptionStatus.INACTIVE),
+                SubscriptionStatus.ACTIVE,
+                "payment " + paymentId,
+                new Update()
+                        .set("maxDeliveriesPerMonth",
+                                "WEEKLY".equalsIgnoreCase(subscription.getBillingCycle()) ? 4 : 1)
+                        .set("nextDeliveryDate", calculateFirstDeliveryDate(
+                                subscription.getBillingCycle(), subscription.getDeliveryDay()))
+                        .set("deliveriesThisMonth", 0)
+                        .set("quotaMonth", YearMonth.now().toString())
+                        .set("activatedByPaymentId", paymentId));
+
+        if (activated == null) {
+            return false;
+        }
+        log.info("Activated subscription {} for payment {}", subscriptionId, paymentId);
+        return true;
+    }
+
+    @Override
+    public boolean suspendForNonPayment(String subscriptionId, String status) {
+        boolean suspended = transition(subscriptionId, Set.of(SubscriptionStatus.ACTIVE), status,
+                "payment retries exhausted", new Update()) != null;
+
+        if (suspended) {
+            log.info("Subscription {} moved to {} after failed payment retries", subscriptionId, status);
+        }
+        return suspended;
+    }
+
+    @Override
+    public boolean consumeDeliveryQuota(String subscriptionId) {
+        String month = YearMonth.now().toString();
+        if (incrementWithinQuota(subscriptionId, month)) {
+            return true;
+        }
+
+        // The counter may still be on last month if the reset job has not reached it yet. Retry
+        // whether or not this call did the rollover: a concurrent one may have done it instead
+        rollOverQuotas(Criteria.where("_id").is(subscriptionId), month);
+        return incrementWithinQuota(subscriptionId, month);
+    }
+
+    @Override
+    public void releaseDeliveryQuota(String subscriptionId) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(subscriptionId)
+                        .and("quotaMonth").is(YearMonth.now().toString())
+                        .and("deliveriesThisMonth").gt(0)),
+                new Update().inc("deliveriesThisMonth", -1),
+                Subscription.class
+        );
+    }
+
+    @Override
+    public long resetDeliveryQuotas(int partition, int partitions) {
+        Criteria criteria = partitions > 1
+                ? Criteria.where("userBucket").mod(partitions, partition)
+                : new Criteria();
+        return rollOverQuotas(criteria, YearMonth.now().toString());
+    }
+
+    // Checks and consumes quota in one update, comparing the two counters on the server
+    private boolean incrementWithinQuota(String subscriptionId, String month) {
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(subscriptionId)
+                        .and("quotaMonth").is(month)
+                        .andOperator(Criteria.expr(ComparisonOperators.valueOf("deliveriesThisMonth")
+                                .lessThan("maxDeliveriesPerMonth")))),
+                new Update().inc("deliveriesThisMonth", 1),
+                Subscription.class
+        ).getModifiedCount() > 0;
+    }
+
+    private long rollOverQuotas(Criteria criteria, String month) {
+        return mongoTemplate.updateMulti(
+                Query.query(criteria.and("quotaMonth").ne(month)),
+                new Update().set("deliveriesThisMonth", 0).set("quotaMonth", month),
+                Subscription.class
+        ).getModifiedCount();
+    }
+
+    /**
+     * Moves the subscription to {@code to} if its status is one of {@code from}, writing only the
+     * status, {@code changes} and a history entry. Returns the updated subscription, or null if
+     * it was not in an allowed source status (or does not exist).
+     */
+    private Subscription transition(String subscriptionId, Set<String> from, String to,
+                                    String reason, Update changes) {
+        LocalDateTime now = LocalDateTime.now();
+        changes.set("status", to)
+                .set("updatedAt", now)
+                .push("transitions", SubscriptionTransition.builder()
+                        .status(to)
+                        .reason(reason)
+                        .at(now)
+                        .build());
+
+        try {
+            return mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(subscriptionId).and("status").in(from)),
+                    changes,
+                    FindAndModifyOptions.options().returnNew(true),
+                    Subscription.class
+            );
+        } catch (DuplicateKeyException e) {
+            // PAUSED and CANCELED sit outside user_open_subscription, so the user may have opened
+            // another subscription since; this one cannot become open again alongside it
+            throw new BusinessException(
+                    "Cannot move subscription to " + to + " while the user has another open subscription");
+        }
+    }
+
+    // As transition, but a refused transition is reported to the caller; only that path reads again
+    private Subscription requireTransition(String subscriptionId, Set<String> from, String to,
+                                           String reason, Update changes) {
+        Subscription updated = transition(subscriptionId, from, to, reason, changes);
+        if (updated == null) {
+            Subscription current = subscriptionRepository.findById(subscriptionId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Subscription not found"));
+            throw new BusinessException(
+                    "Cannot move subscription from " + current.getStatus() + " to " + to);
+        }
+
+        log.info("Subscription {} moved to {}", subscriptionId, to);
+        return updated;
     }
 
     @Override
@@ -163,27 +316,22 @@ public class SubscriptionServiceImpl implements SubscriptionService {
                 .collect(Collectors.toList());
     }
 
-    @Override
-    public void processDueSubscriptions() {
+    private LocalDate calculateFirstDeliveryDate(String deliveryFrequency, String deliveryDay) {
         LocalDate today = LocalDate.now();
-        List<Subscription> dueSubscriptions = subscriptionRepository.findByNextBillingDate(today);
-
-        for (Subscription sub : dueSubscriptions) {
-            try {
-                // TODO: Call OnePipe collect API to charge customer
-                // TODO: Create order in Order collection
-                // TODO: Update nextBillingDate
-                log.info("Processing subscription for user: {}", sub.getUserId());
-                
-                // Update next billing date
-                sub.setNextBillingDate(today.plusMonths(1));
-                sub.setUpdatedAt(LocalDateTime.now());
-                subscriptionRepository.save(sub);
-                
-            } catch (Exception e) {
-                log.error("Failed to process subscription {} for user {}: {}", 
-                         sub.getId(), sub.getUserId(), e.getMessage());
+        DayOfWeek targetDay = DayOfWeek.valueOf(deliveryDay.toUpperCase());
+
+        LocalDate nextDeliveryDay = today.with(TemporalAdjusters.nextOrSame(targetDay));
+
+        if ("MONTHLY".equalsIgnoreCase(deliveryFrequency)) {
+
+            if (nextDeliveryDay.getMonth() == today.getMonth()) {
+                return nextDeliveryDay;
+            } else {
+                return today.with(TemporalAdjusters.firstDayOfNextMonth())
+                        .with(TemporalAdjusters.nextOrSame(targetDay));
             }
+        } else {
+            return nextDeliveryDay;
         }
     }
 
@@ -0,0 +1,182 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.model.RevokedToken;
+import com.dark_store.bukafresh_backend.repository.RevokedTokenRepository;
+import com.dark_store.bukafresh_backend.service.TokenRevocationService;
+import com.dark_store.bukafresh_backend.util.BloomFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+/**
+ * Deny-list of revoked JWT ids. Every node keeps a Bloom filter of the {@code revoked_tokens}
+ * collection, so the common "not revoked" answer is an in-memory check. Only filter hits are
+ * confirmed against MongoDB, and those answers are cached.
+ *
+ * The filter is topped up with entries newer than the last refresh every few seconds, which is
+ * also how revocations made on other nodes arrive. Bloom filters cannot forget, so it is rebuilt
+ * from scratch periodically; the TTL index has removed expired tokens by then.
+ */
+@Service
+@Slf4j
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+
+    // Re-reads a little before the last refresh to tolerate clock skew between nodes
+    private static final Duration REFRESH_OVERLAP = Duration.ofSeconds(30);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final MongoTemplate mongoTemplate;
+    private final long expectedRevocations;
+    private final double falsePositiveRate;
+
+    private final Cache<String, Boolean> confirmed;
+    private final Counter filterNegatives;
+    private final Counter filterPositives;
+    private final Counter falsePositives;
+
+    private volatile BloomFilter filter;
+    private Instant lastRefresh = Instant.EPOCH;
+
+    public TokenRevocationServiceImpl(RevokedTokenRepository revokedTokenRepository,
+                                      MongoTemplate mongoTemplate,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${jwt.revocation.expected-revocations:100000}") long expectedRevocations,
+                                      @Value("${jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedRevocations, falsePositiveRate);
+
+        this.confirmed = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMinutes(5))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, confirmed, "jwt.revocation.confirmed");
+
+        this.filterNegatives = Counter.builder("jwt.revocation.checks")
+                .tag("result", "filter_negative")
+                .register(meterRegistry);
+        this.filterPositives = Counter.builder("jwt.revocation.checks")
+                .tag("result", "filter_positive")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("jwt.revocation.false_positives")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void revoke(Claims claims) {
+        String jti = claims.getId();
+        Instant expiresAt = claims.getExpiration().toInstant();
+
+        if (jti == null || !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+
+        revokedTokenRepository.save(RevokedToken.builder()
+                .id(jti)
+                .userId(claims.getSubject())
+                .revokedAt(Instant.now())
+                .expiresAt(expiresAt)
+                .build());
+
+        filter.put(jti);
+        confirmed.put(jti, Boolean.TRUE);
+        log.info("Revoked token {} for user {}", jti, claims.getSubject());
+    }
+
+    @Override
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+
+        if (!filter.mightContain(jti)) {
+            filterNegatives.increment();
+            return false;
+        }
+
+        filterPositives.increment();
+        boolean revoked = confirmed.get(jti, id -> mongoTemplate.exists(
+                Query.query(Criteria.where("_id").is(id)), RevokedToken.class));
+        if (!revoked) {
+            falsePositives.increment();
+        }
+        return revoked;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval:PT5S}")
+    public synchronized void refresh() {
+        Instant since = lastRefresh;
+        Instant startedAt = Instant.now();
+        BloomFilter current = filter;
+
+        int added = 0;
+        try (Stream<RevokedToken> revoked = mongoTemplate.stream(revokedSince(since), RevokedToken.class)) {
+            for (RevokedToken token : (Iterable<RevokedToken>) revoked::iterator) {
+                current.put(token.getId());
+                // A cached "not revoked" answer from a false positive would now be stale
+                confirmed.invalidate(token.getId());
+                added++;
+            }
+        } catch (Exception e) {
+            log.warn("Revocation filter refresh failed: {}", e.getMessage());
+            return;
+        }
+
+        lastRefresh = startedAt.minus(REFRESH_OVERLAP);
+        if (added > 0) {
+            log.debug("Added {} revoked tokens to the revocation filter", added);
+        }
+    }
+
+    @Scheduled(
+            fixedDelayString = "${jwt.revocation.rebuild-interval:PT1H}",
+            initialDelayString = "${jwt.revocation.rebuild-interval:PT1H}"
+    )
+    public synchronized void rebuild() {
+        Instant startedAt = Instant.now();
+
+        try {
+            long live = mongoTemplate.count(revokedSince(Instant.EPOCH), RevokedToken.class);
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, live * 2), falsePositiveRate);
+
+            try (Stream<RevokedToken> revoked = mongoTemplate.stream(revokedSince(Instant.EPOCH), RevokedToken.class)) {
+                revoked.forEach(token -> rebuilt.put(token.getId()));
+            }
+
+            filter = rebuilt;
+            log.info("Rebuilt revocation filter with {} live entries", live);
+        } catch (Exception e) {
+            log.warn("Revocation filter rebuild failed: {}", e.getMessage());
+            return;
+        }
+
+        // Catch anything revoked locally into the old filter while the scan was running
+        lastRefresh = startedAt.minus(REFRESH_OVERLAP);
+        refresh();
+    }
+
+    private Query revokedSince(Instant since) {
+        Query query = Query.query(Criteria.where("revokedAt").gt(since).and("expiresAt").gt(Instant.now()))
+                .with(Sort.by("revokedAt"));
+        query.fields().include("_id");
+        return query;
+    }
+}
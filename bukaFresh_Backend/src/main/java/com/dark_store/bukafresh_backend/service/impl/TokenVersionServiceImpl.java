@@ -0,0 +1,91 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.model.User;
+import com.dark_store.bukafresh_backend.service.TokenVersionService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Keeps each user's current token version in a small local cache. Lookups refresh in the
+ * background, so a revocation on another node is picked up within the refresh interval
+ * without putting the {@code users} collection back on the per-request path.
+ */
+@Service
+@Slf4j
+public class TokenVersionServiceImpl implements TokenVersionService {
+
+    private final MongoTemplate mongoTemplate;
+    private final LoadingCache<String, Long> versions;
+
+    public TokenVersionServiceImpl(MongoTemplate mongoTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${jwt.token-version-cache.max-size:50000}") long maxSize,
+                                   @Value("${jwt.token-version-cache.refresh-after:PT30S}") Duration refreshAfter,
+                                   @Value("${jwt.token-version-cache.expire-after:PT5M}") Duration expireAfter) {
+        this.mongoTemplate = mongoTemplate;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                .recordStats()
+                .build(this::loadVersion);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "jwt.token-versions");
+    }
+
+    @Override
+    public boolean isCurrent(String userId, long tokenVersion) {
+        Long current = versions.get(userId);
+        return current != null && current == tokenVersion;
+    }
+
+    @Override
+    public long revokeAllTokens(String userId) {
+        Query query = Query.query(Criteria.where("_id").is(userId));
+        Update update = new Update()
+                .inc("tokenVersion", 1)
+                .set("updatedAt", LocalDateTime.now());
+
+        User updated = mongoTemplate.findAndModify(
+                query,
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                User.class
+        );
+
+        if (updated == null) {
+            versions.invalidate(userId);
+            return 0L;
+        }
+
+        long newVersion = updated.getTokenVersion() == null ? 0L : updated.getTokenVersion();
+        versions.put(userId, newVersion);
+        log.info("Revoked all tokens for user {} (token version now {})", userId, newVersion);
+        return newVersion;
+    }
+
+    // Returns null for unknown users so the cache does not hold an entry for them
+    private Long loadVersion(String userId) {
+        Query query = Query.query(Criteria.where("_id").is(userId));
+        query.fields().include("tokenVersion");
+
+        User user = mongoTemplate.findOne(query, User.class);
+        if (user == null) {
+            return null;
+        }
+        return user.getTokenVersion() == null ? 0L : user.getTokenVersion();
+    }
+}
@@ -1,6 +1,7 @@
 package com.dark_store.bukafresh_backend.service.impl;
 
 import com.dark_store.bukafresh_backend.config.JwtUtil;
+import com.dark_store.bukafresh_backend.config.VerifiedClaimsCache;
 import com.dark_store.bukafresh_backend.dto.request.CheckoutRegisterRequest;
 import com.dark_store.bukafresh_backend.dto.request.CreateUserRequest;
 import com.dark_store.bukafresh_backend.dto.request.LoginRequest;
@@ -14,14 +15,23 @@ import com.dark_store.bukafresh_backend.model.Role;
 import com.dark_store.bukafresh_backend.model.User;
 import com.dark_store.bukafresh_backend.repository.AddressRepository;
 import com.dark_store.bukafresh_backend.repository.UserRepository;
+import com.dark_store.bukafresh_backend.service.PasswordHashingService;
 import com.dark_store.bukafresh_backend.service.ProfileService;
+import com.dark_store.bukafresh_backend.service.RefreshTokenService;
 import com.dark_store.bukafresh_backend.service.SecurityAlertService;
+import com.dark_store.bukafresh_backend.service.TokenRevocationService;
+import com.dark_store.bukafresh_backend.service.TokenVersionService;
 import com.dark_store.bukafresh_backend.service.UserService;
+import com.dark_store.bukafresh_backend.service.VerificationTokenService;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -29,14 +39,22 @@ import java.util.UUID;
 
 @RequiredArgsConstructor
 @Service
+@Slf4j
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final VerificationTokenService verificationTokenService;
     private final SecurityAlertService securityAlertService;
     private final JwtUtil jwtUtil;
-    private final AuthenticationManager authenticationManager;
     private final AddressRepository addressRepository;
     private final ProfileService profileService;
+    private final MongoTemplate mongoTemplate;
+    private final VerifiedClaimsCache verifiedClaimsCache;
+    private final TokenRevocationService tokenRevocationService;
+    private final TokenVersionService tokenVersionService;
+    private final RefreshTokenService refreshTokenService;
+
+    private final AccountStatusUserDetailsChecker accountStatusChecker = new AccountStatusUserDetailsChecker();
 
     @Override
     public void createAccount(CreateUserRequest request) {
@@ -47,19 +65,17 @@ public class UserServiceImpl implements UserService {
             );
         }
 
-        String plainToken = UUID.randomUUID().toString();
-
         User savedUser = userRepository.save(
                 User.builder()
                         .email(request.email())
-                        .password(passwordEncoder.encode(request.password()))
+                        .password(passwordHashingService.hash(request.password()))
                         .emailVerified(false)
-                        .emailVerificationToken(passwordEncoder.encode(plainToken))
-                        .emailVerificationTokenExpiry(LocalDateTime.now().plusMinutes(30))
                         .role(Role.USER)
                         .build()
         );
 
+        String plainToken = verificationTokenService.issue(savedUser.getId());
+
         profileService.createProfile(
                 request.firstName(), 
                 request.lastName(),
@@ -82,13 +98,7 @@ public class UserServiceImpl implements UserService {
             throw new UserAlreadyVerifiedException("User Already Verified");
         }
 
-        if (!passwordEncoder.matches(token, user.getEmailVerificationToken())) {
-            throw new TokenNotFoundException("Invalid token");
-        }
-
-        if (user.getEmailVerificationTokenExpiry().isBefore(LocalDateTime.now())) {
-            throw new TokenExpiredException("Expired token");
-        }
+        verificationTokenService.verify(userId, token);
 
 
         user.setEmailVerified(true);
@@ -99,7 +109,7 @@ public class UserServiceImpl implements UserService {
 
         String jwtToken = jwtUtil.generateToken(savedUser);
 
-        return LoginResponse.fromEntity(savedUser, jwtToken);
+        return LoginResponse.fromEntity(savedUser, jwtToken, refreshTokenService.issue(savedUser.getId()));
     }
 
     @Override
@@ -112,12 +122,19 @@ public class UserServiceImpl implements UserService {
             throw new UnVerifiedEmailException("Kindly verify your email before logging in");
         }
 
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.email(), request.password())
-        );
+        accountStatusChecker.check(user);
+
+        if (!passwordHashingService.matches(request.password(), user.getPassword())) {
+            throw new BadCredentialsException("Invalid email or password");
+        }
+
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            rehashPassword(user, request.password());
+        }
+
         String jwtToken = jwtUtil.generateToken(user);
 
-        return LoginResponse.fromEntity(user,jwtToken);
+        return LoginResponse.fromEntity(user, jwtToken, refreshTokenService.issue(user.getId()));
 
     }
 
@@ -128,19 +145,17 @@ public class UserServiceImpl implements UserService {
             throw new UserAlreadyExistsException("Email already registered");
         }
 
-        String plainToken = UUID.randomUUID().toString();
-
         User savedUser = userRepository.save(
                 User.builder()
                         .email(request.email())
-                        .password(passwordEncoder.encode(request.password()))
+                        .password(passwordHashingService.hash(request.password()))
                         .emailVerified(false)
-                        .emailVerificationToken(passwordEncoder.encode(plainToken))
-                        .emailVerificationTokenExpiry(LocalDateTime.now().plusMinutes(30))
                         .role(Role.USER)
                         .build()
         );
 
+        String plainToken = verificationTokenService.issue(savedUser.getId());
+
         Address address = Address.builder()
                 .id(UUID.randomUUID().toString())
                 .street(request.deliveryAddress().street())
@@ -179,14 +194,22 @@ public class UserServiceImpl implements UserService {
             throw new BusinessException("Email is already verified");
         }
 
-        String newToken = UUID.randomUUID().toString();
+        String newToken = verificationTokenService.issue(user.getId());
 
-        user.setEmailVerificationToken(passwordEncoder.encode(newToken));
-        user.setEmailVerificationTokenExpiry(LocalDateTime.now().plusMinutes(30));
+        securityAlertService.SendEmailVerificationToNewUser(user, newToken);
+    }
 
-        userRepository.save(user);
+    // Moves the stored hash to the current BCrypt cost; only the password field is written
+    private void rehashPassword(User user, String rawPassword) {
+        String newHash = passwordHashingService.hash(rawPassword);
 
-        securityAlertService.SendEmailVerificationToNewUser(user, newToken);
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(user.getId()).and("password").is(user.getPassword())),
+                new Update().set("password", newHash).set("updatedAt", LocalDateTime.now()),
+                User.class
+        );
+        user.setPassword(newHash);
+        log.info("Rehashed password for user {} at the current BCrypt cost", user.getId());
     }
 
     @Override
@@ -196,6 +219,43 @@ public class UserServiceImpl implements UserService {
         return ProfileResponse.fromEntity(profile);
     }
 
+    @Override
+    public LoginResponse refresh(String refreshToken) {
+        RefreshTokenService.RotatedRefreshToken rotated = refreshTokenService.rotate(refreshToken);
+
+        User user = userRepository.findById(rotated.userId())
+                .orElseThrow(() -> new InvalidRefreshTokenException("Invalid or expired refresh token"));
+        accountStatusChecker.check(user);
+
+        return LoginResponse.fromEntity(user, jwtUtil.generateToken(user), rotated.refreshToken());
+    }
+
+    @Override
+    public void logout(String token, String refreshToken) {
+        if (refreshToken != null) {
+            refreshTokenService.revokeFamily(refreshToken);
+        }
+
+        Claims claims = verifiedClaimsCache.getVerifiedClaims(token);
+        if (claims == null) {
+            return;
+        }
+
+        if (claims.getId() == null) {
+            // Tokens issued before the jti claim existed can only be revoked by a version bump
+            tokenVersionService.revokeAllTokens(claims.getSubject());
+        } else {
+            tokenRevocationService.revoke(claims);
+        }
+        verifiedClaimsCache.invalidate(token);
+    }
+
+    @Override
+    public void logoutAllSessions(String userId) {
+        refreshTokenService.revokeAllForUser(userId);
+        tokenVersionService.revokeAllTokens(userId);
+    }
+
 }
 
 
@@ -0,0 +1,140 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.exception.TokenExpiredException;
+import com.dark_store.bukafresh_backend.exception.TokenNotFoundException;
+import com.dark_store.bukafresh_backend.model.EmailVerificationToken;
+import com.dark_store.bukafresh_backend.repository.EmailVerificationTokenRepository;
+import com.dark_store.bukafresh_backend.service.VerificationTokenService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Single-use email verification tokens of the form {@code <expiryEpochSeconds>.<random>}.
+ * Only a keyed HMAC-SHA256 digest is stored, so checking a token costs one HMAC instead of a BCrypt run.
+ */
+@Service
+public class VerificationTokenServiceImpl implements VerificationTokenService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int RANDOM_BYTES = 32;
+    // HKDF info label, so the key derived from the JWT secret is only good for this purpose
+    private static final byte[] KEY_PURPOSE = "bukafresh/email-verification".getBytes(StandardCharsets.UTF_8);
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final EmailVerificationTokenRepository tokenRepository;
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final ThreadLocal<Mac> macs;
+
+    public VerificationTokenServiceImpl(EmailVerificationTokenRepository tokenRepository,
+                                        @Value("${verification.token.secret:}") String secret,
+                                        @Value("${jwt_secret}") String jwtSecret,
+                                        @Value("${verification.token.ttl:PT30M}") Duration ttl) {
+        this.tokenRepository = tokenRepository;
+        // A dedicated secret wins; otherwise a purpose-bound key is derived so the JWT signing key
+        // itself is never used for these HMACs
+        this.key = new SecretKeySpec(
+                secret.isBlank() ? hkdf(jwtSecret.getBytes(StandardCharsets.UTF_8), KEY_PURPOSE)
+                        : secret.getBytes(StandardCharsets.UTF_8),
+                HMAC_ALGORITHM);
+        this.ttl = ttl;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    @Override
+    public String issue(String userId) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(ttl);
+
+        byte[] random = new byte[RANDOM_BYTES];
+        secureRandom.nextBytes(random);
+        String token = expiresAt.getEpochSecond() + "." + ENCODER.encodeToString(random);
+
+        tokenRepository.save(EmailVerificationToken.builder()
+                .userId(userId)
+                .tokenDigest(ENCODER.encodeToString(digest(userId, token)))
+                .expiresAt(expiresAt)
+                .createdAt(now)
+                .build());
+
+        return token;
+    }
+
+    @Override
+    public void verify(String userId, String token) {
+        Instant expiresAt = parseExpiry(token);
+
+        EmailVerificationToken stored = tokenRepository.findById(userId)
+                .orElseThrow(() -> new TokenNotFoundException("Invalid token"));
+
+        byte[] expected = DECODER.decode(stored.getTokenDigest());
+        if (!MessageDigest.isEqual(expected, digest(userId, token))) {
+            throw new TokenNotFoundException("Invalid token");
+        }
+
+        // The expiry is covered by the HMAC, so it can be trusted once the digest matches
+        if (expiresAt.isBefore(Instant.now())) {
+            throw new TokenExpiredException("Expired token");
+        }
+
+        tokenRepository.deleteById(userId);
+    }
+
+    private static Instant parseExpiry(String token) {
+        int separator = token == null ? -1 : token.indexOf('.');
+        if (separator <= 0) {
+            throw new TokenNotFoundException("Invalid token");
+        }
+        try {
+            return Instant.ofEpochSecond(Long.parseLong(token.substring(0, separator)));
+        } catch (NumberFormatException e) {
+            throw new TokenNotFoundException("Invalid token");
+        }
+    }
+
+    private byte[] digest(String userId, String token) {
+        Mac mac = macs.get();
+        mac.update(userId.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) '.');
+        return mac.doFinal(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // RFC 5869 HKDF-SHA256 with an all-zero salt, one 32-byte output block
+    private static byte[] hkdf(byte[] inputKey, byte[] info) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(new byte[32], HMAC_ALGORITHM));
+            byte[] pseudoRandomKey = mac.doFinal(inputKey);
+
+            mac.init(new SecretKeySpec(pseudoRandomKey, HMAC_ALGORITHM));
+            mac.update(info);
+            mac.update((byte) 1);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 not available", e);
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.dto.onePipe.response.OnePipeWebhookPayload;
+import com.dark_store.bukafresh_backend.service.WebhookDedupService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Time-windowed memory of recently seen OnePipe callbacks. Retried deliveries of an identical
+ * payload are answered from here without touching MongoDB, and the inbox worker skips payloads
+ * this node has already applied.
+ */
+@Service
+public class WebhookDedupServiceImpl implements WebhookDedupService {
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Outcome> outcomes;
+    private final Counter firstDeliveries;
+    private final Counter duplicates;
+    private final Counter skippedProcessing;
+
+    public WebhookDedupServiceImpl(ObjectMapper objectMapper,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${webhook.dedup.window:PT30M}") Duration window,
+                                   @Value("${webhook.dedup.max-size:100000}") long maxSize) {
+        this.objectMapper = objectMapper;
+        this.outcomes = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(window)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, outcomes, "webhook.dedup");
+
+        // duplicate rate = duplicate / (first + duplicate)
+        this.firstDeliveries = Counter.builder("webhook.dedup.deliveries").tag("result", "first").register(meterRegistry);
+        this.duplicates = Counter.builder("webhook.dedup.deliveries").tag("result", "duplicate").register(meterRegistry);
+        this.skippedProcessing = Counter.builder("webhook.dedup.skipped_processing").register(meterRegistry);
+    }
+
+    @Override
+    public String keyOf(OnePipeWebhookPayload payload) {
+        OnePipeWebhookPayload.Details details = payload.getDetails();
+        return details.getTransaction_ref() + "|" + details.getStatus() + "|" + hash(payload);
+    }
+
+    @Override
+    public Outcome acceptIfFirst(String key) {
+        Outcome previous = outcomes.asMap().putIfAbsent(key, Outcome.ACCEPTED);
+        if (previous == null) {
+            firstDeliveries.increment();
+        } else {
+            duplicates.increment();
+        }
+        return previous;
+    }
+
+    @Override
+    public void forget(String key) {
+        outcomes.invalidate(key);
+    }
+
+    @Override
+    public void markProcessed(String key) {
+        outcomes.put(key, Outcome.PROCESSED);
+    }
+
+    @Override
+    public boolean isProcessed(String key) {
+        boolean processed = outcomes.getIfPresent(key) == Outcome.PROCESSED;
+        if (processed) {
+            skippedProcessing.increment();
+        }
+        return processed;
+    }
+
+    private String hash(OnePipeWebhookPayload payload) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] digest = sha256.digest(objectMapper.writeValueAsBytes(payload));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Failed to hash webhook payload", e);
+        }
+    }
+}
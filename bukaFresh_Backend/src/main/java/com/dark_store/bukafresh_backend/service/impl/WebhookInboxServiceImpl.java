@@ -0,0 +1,216 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.config.WebhookInboxProperties;
+import com.dark_store.bukafresh_backend.dto.onePipe.response.OnePipeWebhookPayload;
+import com.dark_store.bukafresh_backend.model.WebhookInboxEntry;
+import com.dark_store.bukafresh_backend.repository.WebhookInboxRepository;
+import com.dark_store.bukafresh_backend.service.WebhookInboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable inbox for OnePipe callbacks. The webhook endpoint only inserts; workers claim entries in
+ * batches under a lease, and failures are retried with exponential backoff until they are parked
+ * as FAILED.
+ */
+@Service
+@Slf4j
+public class WebhookInboxServiceImpl implements WebhookInboxService {
+
+    private static final String SOURCE_ONEPIPE = "onepipe";
+
+    private final WebhookInboxRepository webhookInboxRepository;
+    private final MongoTemplate mongoTemplate;
+    private final WebhookInboxProperties properties;
+
+    private final Timer lag;
+    private final Counter done;
+    private final Counter retried;
+    private final Counter failed;
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong oldestPendingSeconds = new AtomicLong();
+
+    public WebhookInboxServiceImpl(WebhookInboxRepository webhookInboxRepository,
+                                   MongoTemplate mongoTemplate,
+                                   WebhookInboxProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.webhookInboxRepository = webhookInboxRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+
+        // Time from receipt to successful processing
+        this.lag = Timer.builder("webhook.inbox.lag")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.done = Counter.builder("webhook.inbox.processed").tag("outcome", "done").register(meterRegistry);
+        this.retried = Counter.builder("webhook.inbox.processed").tag("outcome", "retry").register(meterRegistry);
+        this.failed = Counter.builder("webhook.inbox.processed").tag("outcome", "failed").register(meterRegistry);
+
+        Gauge.builder("webhook.inbox.backlog", backlog, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("webhook.inbox.oldest_pending_seconds", oldestPendingSeconds, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void enqueue(OnePipeWebhookPayload payload, String dedupKey) {
+        Instant now = Instant.now();
+
+        webhookInboxRepository.insert(WebhookInboxEntry.builder()
+                .source(SOURCE_ONEPIPE)
+                .paymentReference(payload.getDetails().getTransaction_ref())
+                .payload(payload)
+                .dedupKey(dedupKey)
+                .state(WebhookInboxEntry.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .receivedAt(now)
+                .build());
+    }
+
+    @Override
+    public List<WebhookInboxEntry> claimBatch(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        Instant now = Instant.now();
+        Query candidates = Query.query(claimable(now))
+                .with(Sort.by("nextAttemptAt"))
+                .limit(limit);
+        candidates.fields().include("_id");
+
+        List<String> ids = mongoTemplate.find(candidates, WebhookInboxEntry.class).stream()
+                .map(WebhookInboxEntry::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Another node may claim some of these ids first; the re-checked filter leaves those alone
+        String claimId = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                Query.query(new Criteria().andOperator(Criteria.where("_id").in(ids), claimable(now))),
+                new Update()
+                        .set("state", WebhookInboxEntry.PROCESSING)
+                        .set("claimId", claimId)
+                        .set("leaseExpiresAt", now.plus(properties.getLease()))
+                        .inc("attempts", 1),
+                WebhookInboxEntry.class
+        );
+
+        return mongoTemplate.find(Query.query(Criteria.where("claimId").is(claimId)), WebhookInboxEntry.class);
+    }
+
+    @Override
+    public void markDone(WebhookInboxEntry entry) {
+        Instant now = Instant.now();
+
+        mongoTemplate.updateFirst(
+                heldBy(entry),
+                new Update()
+                        .set("state", WebhookInboxEntry.DONE)
+                        .set("processedAt", now)
+                        .set("purgeAt", now.plus(properties.getRetention()))
+                        .unset("claimId")
+                        .unset("leaseExpiresAt")
+                        .unset("lastError"),
+                WebhookInboxEntry.class
+        );
+
+        done.increment();
+        lag.record(Duration.between(entry.getReceivedAt(), now));
+    }
+
+    @Override
+    public void markFailed(WebhookInboxEntry entry, Exception error) {
+        boolean exhausted = entry.getAttempts() >= properties.getMaxAttempts();
+
+        Update update = new Update()
+                .set("lastError", String.valueOf(error.getMessage()))
+                .unset("claimId")
+                .unset("leaseExpiresAt");
+
+        if (exhausted) {
+            update.set("state", WebhookInboxEntry.FAILED);
+            failed.increment();
+            log.error("Webhook inbox entry {} for payment {} failed after {} attempts: {}",
+                    entry.getId(), entry.getPaymentReference(), entry.getAttempts(), error.getMessage());
+        } else {
+            update.set("state", WebhookInboxEntry.PENDING)
+                    .set("nextAttemptAt", Instant.now().plus(backoff(entry.getAttempts())));
+            retried.increment();
+            log.warn("Webhook inbox entry {} for payment {} failed (attempt {}), will retry: {}",
+                    entry.getId(), entry.getPaymentReference(), entry.getAttempts(), error.getMessage());
+        }
+
+        mongoTemplate.updateFirst(heldBy(entry), update, WebhookInboxEntry.class);
+    }
+
+    @Override
+    public void release(WebhookInboxEntry entry) {
+        mongoTemplate.updateFirst(
+                heldBy(entry),
+                new Update()
+                        .set("state", WebhookInboxEntry.PENDING)
+                        .set("nextAttemptAt", Instant.now())
+                        .inc("attempts", -1)
+                        .unset("claimId")
+                        .unset("leaseExpiresAt"),
+                WebhookInboxEntry.class
+        );
+    }
+
+    @Scheduled(fixedDelayString = "${webhook.inbox.metrics-interval:PT15S}")
+    public void refreshBacklogMetrics() {
+        try {
+            Criteria open = Criteria.where("state").in(WebhookInboxEntry.PENDING, WebhookInboxEntry.PROCESSING);
+            backlog.set(mongoTemplate.count(Query.query(open), WebhookInboxEntry.class));
+
+            Query oldest = Query.query(open).with(Sort.by("receivedAt")).limit(1);
+            oldest.fields().include("receivedAt");
+            WebhookInboxEntry entry = mongoTemplate.findOne(oldest, WebhookInboxEntry.class);
+            oldestPendingSeconds.set(entry == null
+                    ? 0
+                    : Duration.between(entry.getReceivedAt(), Instant.now()).toSeconds());
+        } catch (Exception e) {
+            log.warn("Failed to refresh webhook inbox metrics: {}", e.getMessage());
+        }
+    }
+
+    private Criteria claimable(Instant now) {
+        return new Criteria().orOperator(
+                Criteria.where("state").is(WebhookInboxEntry.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("state").is(WebhookInboxEntry.PROCESSING).and("leaseExpiresAt").lt(now)
+        );
+    }
+
+    // Updates only apply while this worker still holds the claim, so a takeover is never overwritten
+    private Query heldBy(WebhookInboxEntry entry) {
+        return Query.query(Criteria.where("_id").is(entry.getId()).and("claimId").is(entry.getClaimId()));
+    }
+
+    private Duration backoff(int attempts) {
+        long base = properties.getInitialBackoff().toMillis() << Math.min(attempts - 1, 20);
+        long capped = Math.min(base, properties.getMaxBackoff().toMillis());
+        // Up to 20% jitter so entries that failed together do not retry together
+        long jitter = ThreadLocalRandom.current().nextLong(capped / 5 + 1);
+        return Duration.ofMillis(capped + jitter);
+    }
+}
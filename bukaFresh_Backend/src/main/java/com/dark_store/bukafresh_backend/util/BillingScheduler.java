@@ -1,26 +1,52 @@
 package com.dark_store.bukafresh_backend.util;
 
-import com.dark_store.bukafresh_backend.service.SubscriptionService;
+import com.dark_store.bukafresh_backend.config.BillingProperties;
+import com.dark_store.bukafresh_backend.service.BillingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Billing as a partitioned cluster job: each partition of user buckets is billed by whichever
+ * node leases it, once per billing window. A run capped by billing.max-per-run resumes from its
+ * checkpoint in the next window, and when nothing is due the indexed query returns at once.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
-public class BillingScheduler {
-
-    private final SubscriptionService subscriptionService;
-
-    @Scheduled(cron = "0 0 0 * * ?") // Run daily at midnight
-    public void runDailyBilling() {
-        log.info("Starting daily billing process");
-        try {
-            subscriptionService.processDueSubscriptions();
-            log.info("Daily billing process completed successfully");
-        } catch (Exception e) {
-            log.error("Error during daily billing process: {}", e.getMessage(), e);
+public class BillingScheduler implements ClusterJob {
+
+    private final BillingService billingService;
+    private final BillingProperties billingProperties;
+
+    @Override
+    public String name() {
+        return "subscription-billing";
+    }
+
+    @Override
+    public int partitions() {
+        return billingProperties.getPartitions();
+    }
+
+    @Override
+    public Duration interval() {
+        return billingProperties.getWindow();
+    }
+
+    @Override
+    public boolean enabled() {
+        return billingProperties.isEnabled();
+    }
+
+    @Override
+    public void run(int partition, int partitions, BooleanSupplier leaseHeld) {
+        int handled = billingService.billDueSubscriptions(partition, partitions, leaseHeld);
+        if (handled > 0) {
+            log.info("Billing partition {}/{} handled {} due subscriptions", partition, partitions, handled);
         }
     }
 }
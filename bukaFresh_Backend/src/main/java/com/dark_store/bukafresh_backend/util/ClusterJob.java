@@ -0,0 +1,28 @@
+package com.dark_store.bukafresh_backend.util;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A periodic job run by {@link ClusterJobScheduler}: once per {@link #interval()} across the
+ * whole cluster, split into {@link #partitions()} pieces that nodes claim independently.
+ */
+public interface ClusterJob {
+
+    String name();
+
+    /** Number of partitions; each is leased and run on its own. 1 makes it a single-leader job. */
+    int partitions();
+
+    /** Length of one run. A partition completed in a run is not started again until the next. */
+    Duration interval();
+
+    boolean enabled();
+
+    /**
+     * Runs one partition. {@code leaseHeld} turns false once this node may have lost the lease;
+     * jobs that work in batches check it between batches and return, so a partition another node
+     * has taken over is not worked on (or its checkpoint written) by both.
+     */
+    void run(int partition, int partitions, BooleanSupplier leaseHeld);
+}
@@ -0,0 +1,175 @@
+package com.dark_store.bukafresh_backend.util;
+
+import com.dark_store.bukafresh_backend.config.ClusterJobProperties;
+import com.dark_store.bukafresh_backend.service.JobLockService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+/**
+ * Runs every {@link ClusterJob} bean so that each partition executes once per run on exactly one
+ * node. On every tick a node walks the partitions in random order and leases the ones that are
+ * free and not yet done for the current run, up to its free worker slots. A heartbeat keeps the
+ * lease alive while the partition runs; if the node dies the lease lapses and another node's
+ * next tick takes the partition over.
+ */
+@Component
+@Slf4j
+public class ClusterJobScheduler {
+
+    private final List<ClusterJob> jobs;
+    private final JobLockService jobLockService;
+    private final ClusterJobProperties properties;
+
+    private final ExecutorService workers;
+    private final ScheduledExecutorService heartbeats;
+    private final Semaphore slots;
+    // Partitions running on this node, so a tick does not try to lease them again
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private final Map<String, Counter> outcomes;
+
+    public ClusterJobScheduler(List<ClusterJob> jobs,
+                               JobLockService jobLockService,
+                               ClusterJobProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.jobs = jobs;
+        this.jobLockService = jobLockService;
+        this.properties = properties;
+
+        AtomicInteger threadIds = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(properties.getWorkers(), runnable -> {
+            Thread thread = new Thread(runnable, "cluster-job-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-job-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.slots = new Semaphore(properties.getWorkers());
+
+        this.outcomes = Map.of(
+                "completed", outcomeCounter(meterRegistry, "completed"),
+                "failed", outcomeCounter(meterRegistry, "failed"),
+                "lease_lost", outcomeCounter(meterRegistry, "lease_lost")
+        );
+    }
+
+    @Scheduled(fixedDelayString = "${cluster-jobs.tick:PT30S}", initialDelayString = "PT15S")
+    public void tick() {
+        for (ClusterJob job : jobs) {
+            if (!job.enabled()) {
+                continue;
+            }
+            try {
+                claim(job);
+            } catch (Exception e) {
+                log.error("Cluster job {} tick failed: {}", job.name(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private void claim(ClusterJob job) {
+        long run = Instant.now().toEpochMilli() / job.interval().toMillis();
+        int partitions = job.partitions();
+
+        // Random order, so nodes ticking together spread over different partitions
+        List<Integer> order = new ArrayList<>(IntStream.range(0, partitions).boxed().toList());
+        Collections.shuffle(order);
+
+        for (int partition : order) {
+            String lockId = job.name() + ":" + partition;
+            if (running.contains(lockId) || !slots.tryAcquire()) {
+                continue;
+            }
+            if (!jobLockService.tryAcquire(lockId, run, properties.getLease())) {
+                slots.release();
+                continue;
+            }
+
+            running.add(lockId);
+            workers.execute(() -> runPartition(job, partition, partitions, lockId, run));
+        }
+    }
+
+    private void runPartition(ClusterJob job, int partition, int partitions, String lockId, long run) {
+        long heartbeatMillis = properties.getHeartbeat().toMillis();
+        long leaseMillis = properties.getLease().toMillis();
+
+        // The lease counts as held until it is refused, or until a full lease passes without a
+        // successful renewal (Mongo unreachable), since another node may have taken it by then
+        AtomicBoolean lost = new AtomicBoolean();
+        AtomicLong heldUntil = new AtomicLong(System.currentTimeMillis() + leaseMillis);
+        BooleanSupplier leaseHeld = () -> !lost.get() && System.currentTimeMillis() < heldUntil.get();
+
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(() -> {
+            long renewingAt = System.currentTimeMillis();
+            try {
+                if (jobLockService.renew(lockId, properties.getLease())) {
+                    heldUntil.set(renewingAt + leaseMillis);
+                } else if (lost.compareAndSet(false, true)) {
+                    log.warn("Lease on {} was lost while running; stopping after the current batch", lockId);
+                }
+            } catch (Exception e) {
+                log.warn("Could not renew lease on {}: {}", lockId, e.getMessage());
+            }
+        }, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+
+        try {
+            job.run(partition, partitions, leaseHeld);
+            heartbeat.cancel(false);
+            if (!leaseHeld.getAsBoolean()) {
+                // Whoever holds the lease now finishes the partition for this run
+                outcomes.get("lease_lost").increment();
+                return;
+            }
+            jobLockService.complete(lockId, run);
+            outcomes.get("completed").increment();
+        } catch (Exception e) {
+            heartbeat.cancel(false);
+            outcomes.get("failed").increment();
+            log.error("Cluster job partition {} failed: {}", lockId, e.getMessage(), e);
+            // Let any node retry within the same run
+            jobLockService.release(lockId);
+        } finally {
+            running.remove(lockId);
+            slots.release();
+        }
+    }
+
+    // Running partitions are not waited for; their leases expire and another node finishes them
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private static Counter outcomeCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("cluster_jobs.partitions")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
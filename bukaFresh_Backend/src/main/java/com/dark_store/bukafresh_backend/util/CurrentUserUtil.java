@@ -1,5 +1,6 @@
 package com.dark_store.bukafresh_backend.util;
 
+import com.dark_store.bukafresh_backend.config.JwtPrincipal;
 import com.dark_store.bukafresh_backend.model.User;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
@@ -22,6 +23,10 @@ public class CurrentUserUtil {
         Object principal = authentication.getPrincipal();
         log.debug("Authentication principal type: {}", principal.getClass().getName());
         
+        if (principal instanceof JwtPrincipal jwtPrincipal) {
+            return jwtPrincipal.id();
+        }
+
         if (principal instanceof UserDetails) {
             UserDetails userDetails = (UserDetails) principal;
             log.debug("UserDetails username: {}", userDetails.getUsername());
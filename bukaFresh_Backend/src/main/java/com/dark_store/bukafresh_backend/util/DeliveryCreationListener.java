@@ -0,0 +1,31 @@
+package com.dark_store.bukafresh_backend.util;
+
+import com.dark_store.bukafresh_backend.dto.event.SubscriptionActivatedEvent;
+import com.dark_store.bukafresh_backend.service.DeliveryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Second saga step: schedules the first delivery once the subscription is active, since the
+ * delivery date comes from the subscription's next delivery date. Deliveries are unique per
+ * payment, so redelivered events return the existing one; failures are retried and finally parked
+ * on the dead-letter topic rather than dropped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DeliveryCreationListener {
+
+    private final DeliveryService deliveryService;
+
+    @KafkaListener(
+            topics = "${payment.events.subscription-activated-topic:subscription.activated}",
+            groupId = "delivery-creation"
+    )
+    public void onSubscriptionActivated(SubscriptionActivatedEvent event) {
+        deliveryService.createDeliveryFromPayment(event.paymentId(), event.subscriptionId());
+        log.info("Delivery ensured for payment {} on subscription {}", event.paymentId(), event.subscriptionId());
+    }
+}
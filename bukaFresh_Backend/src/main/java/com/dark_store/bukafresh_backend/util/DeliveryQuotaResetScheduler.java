@@ -0,0 +1,48 @@
+package com.dark_store.bukafresh_backend.util;
+
+import com.dark_store.bukafresh_backend.config.DeliveryQuotaProperties;
+import com.dark_store.bukafresh_backend.service.SubscriptionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+// One updateMulti per partition once the month turns; later runs that month match nothing
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DeliveryQuotaResetScheduler implements ClusterJob {
+
+    private final SubscriptionService subscriptionService;
+    private final DeliveryQuotaProperties properties;
+
+    @Override
+    public String name() {
+        return "delivery-quota-reset";
+    }
+
+    @Override
+    public int partitions() {
+        return properties.getPartitions();
+    }
+
+    @Override
+    public Duration interval() {
+        return properties.getInterval();
+    }
+
+    @Override
+    public boolean enabled() {
+        return properties.isEnabled();
+    }
+
+    @Override
+    public void run(int partition, int partitions, BooleanSupplier leaseHeld) {
+        long reset = subscriptionService.resetDeliveryQuotas(partition, partitions);
+        if (reset > 0) {
+            log.info("Reset delivery quota for {} subscriptions in partition {}/{}", reset, partition, partitions);
+        }
+    }
+}
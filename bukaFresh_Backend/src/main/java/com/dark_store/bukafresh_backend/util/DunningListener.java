@@ -0,0 +1,32 @@
+package com.dark_store.bukafresh_backend.util;
+
+import com.dark_store.bukafresh_backend.dto.event.PaymentFailedEvent;
+import com.dark_store.bukafresh_backend.dto.event.PaymentSucceededEvent;
+import com.dark_store.bukafresh_backend.service.DunningService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+// Feeds payment outcomes into dunning; both handlers are idempotent per payment
+@Component
+@RequiredArgsConstructor
+public class DunningListener {
+
+    private final DunningService dunningService;
+
+    @KafkaListener(
+            topics = "${payment.events.payment-failed-topic:payment.failed}",
+            groupId = "dunning"
+    )
+    public void onPaymentFailed(PaymentFailedEvent event) {
+        dunningService.onPaymentFailed(event.paymentId());
+    }
+
+    @KafkaListener(
+            topics = "${payment.events.payment-succeeded-topic:payment.succeeded}",
+            groupId = "dunning"
+    )
+    public void onPaymentSucceeded(PaymentSucceededEvent event) {
+        dunningService.onPaymentSucceeded(event.paymentId());
+    }
+}
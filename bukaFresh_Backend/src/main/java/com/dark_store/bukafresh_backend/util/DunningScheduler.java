@@ -0,0 +1,47 @@
+package com.dark_store.bukafresh_backend.util;
+
+import com.dark_store.bukafresh_backend.config.DunningProperties;
+import com.dark_store.bukafresh_backend.service.DunningService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DunningScheduler implements ClusterJob {
+
+    private final DunningService dunningService;
+    private final DunningProperties properties;
+
+    @Override
+    public String name() {
+        return "dunning";
+    }
+
+    @Override
+    public int partitions() {
+        return properties.getPartitions();
+    }
+
+    @Override
+    public Duration interval() {
+        return properties.getInterval();
+    }
+
+    @Override
+    public boolean enabled() {
+        return properties.isEnabled();
+    }
+
+    @Override
+    public void run(int partition, int partitions, BooleanSupplier leaseHeld) {
+        int picked = dunningService.processDueRetries(partition, partitions, leaseHeld);
+        if (picked > 0) {
+            log.info("Dunning partition {}/{} picked up {} due retries", partition, partitions, picked);
+        }
+    }
+}
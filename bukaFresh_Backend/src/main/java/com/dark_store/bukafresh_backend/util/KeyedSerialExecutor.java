@@ -0,0 +1,65 @@
+package com.dark_store.bukafresh_backend.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks for the same key one after another, in submission order, while different keys run in
+ * parallel. Keys are hashed onto a fixed set of single-threaded stripes, each with its own bounded
+ * queue; a full stripe rejects with {@link RejectedExecutionException} instead of blocking.
+ */
+public final class KeyedSerialExecutor {
+
+    private final ThreadPoolExecutor[] stripes;
+
+    public KeyedSerialExecutor(String name, int stripeCount, int queueCapacity) {
+        this.stripes = new ThreadPoolExecutor[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            String threadName = name + "-" + i;
+            stripes[i] = new ThreadPoolExecutor(
+                    1, 1,
+                    0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy()
+            );
+        }
+    }
+
+    public void execute(String key, Runnable task) {
+        stripes[stripeFor(key)].execute(task);
+    }
+
+    public int queuedTasks() {
+        int queued = 0;
+        for (ThreadPoolExecutor stripe : stripes) {
+            queued += stripe.getQueue().size();
+        }
+        return queued;
+    }
+
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        for (ThreadPoolExecutor stripe : stripes) {
+            stripe.shutdown();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ThreadPoolExecutor stripe : stripes) {
+            if (!stripe.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                stripe.shutdownNow();
+            }
+        }
+    }
+
+    private int stripeFor(String key) {
+        int hash = key == null ? 0 : key.hashCode();
+        // Spread the high bits so keys with similar suffixes do not pile onto one stripe
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, stripes.length);
+    }
+}
@@ -2,15 +2,28 @@ package com.dark_store.bukafresh_backend.util;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 public final class MD5Hash {
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    // MessageDigest is not thread-safe; one per thread avoids the provider lookup on every call
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    });
+
     private MD5Hash() {}
     public static String generate(String requestRef, String clientSecret) {
         try {
             String payload = requestRef + ";" + clientSecret;
 
-            MessageDigest md = MessageDigest.getInstance("MD5");
+            MessageDigest md = MD5.get();
+            md.reset();
             byte[] digest = md.digest(payload.getBytes(StandardCharsets.UTF_8));
 
             return toHex(digest);
@@ -22,12 +35,14 @@ public final class MD5Hash {
         }
     }
 
-    private static String toHex(byte[] bytes) {
-        StringBuilder hex = new StringBuilder(bytes.length * 2);
-        for (byte b : bytes) {
-            hex.append(String.format("%02x", b));
+    // Table lookup straight into the output buffer; no per-byte formatting or boxing
+    static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0, j = 0; i < bytes.length; i++) {
+            int b = bytes[i] & 0xFF;
+            hex[j++] = HEX_DIGITS[b >>> 4];
+            hex[j++] = HEX_DIGITS[b & 0x0F];
         }
-        return hex.toString();
+        return new String(hex);
     }
 }
-
@@ -0,0 +1,31 @@
+package com.dark_store.bukafresh_backend.util;
+
+import com.dark_store.bukafresh_backend.config.PaymentEventsProperties;
+import com.dark_store.bukafresh_backend.service.PaymentOutboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentOutboxRelay {
+
+    private final PaymentOutboxService paymentOutboxService;
+    private final PaymentEventsProperties properties;
+
+    @Scheduled(fixedDelayString = "${payment.events.outbox.poll-interval:PT1S}")
+    public void relay() {
+        try {
+            int rounds = 0;
+            // A short batch means the outbox is drained for now; a longer backlog continues next poll
+            while (paymentOutboxService.relayBatch() >= properties.getOutbox().getBatchSize()
+                    && ++rounds < properties.getOutbox().getMaxBatchesPerPoll()) {
+                log.debug("Payment outbox still has a backlog, relaying the next batch");
+            }
+        } catch (Exception e) {
+            log.error("Payment outbox relay failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.dark_store.bukafresh_backend.util;
+
+import com.dark_store.bukafresh_backend.config.PaymentReconciliationProperties;
+import com.dark_store.bukafresh_backend.service.PaymentReconciliationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+// Single partition: the sweep keeps one global checkpoint, so one node runs it per interval
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentReconciliationScheduler implements ClusterJob {
+
+    private final PaymentReconciliationService paymentReconciliationService;
+    private final PaymentReconciliationProperties properties;
+
+    @Override
+    public String name() {
+        return "payment-reconciliation";
+    }
+
+    @Override
+    public int partitions() {
+        return 1;
+    }
+
+    @Override
+    public Duration interval() {
+        return properties.getInterval();
+    }
+
+    @Override
+    public boolean enabled() {
+        return properties.isEnabled();
+    }
+
+    @Override
+    public void run(int partition, int partitions, BooleanSupplier leaseHeld) {
+        int checked = paymentReconciliationService.reconcileStalePayments(leaseHeld);
+        if (checked > 0) {
+            log.info("Payment reconciliation checked {} stale payments", checked);
+        }
+    }
+}
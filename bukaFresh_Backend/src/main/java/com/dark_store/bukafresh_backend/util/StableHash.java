@@ -0,0 +1,23 @@
+package com.dark_store.bukafresh_backend.util;
+
+/**
+ * Hash buckets that are the same on every node and across restarts, for values that get stored
+ * and queried (work partitions, billing slots).
+ */
+public final class StableHash {
+
+    private StableHash() {
+    }
+
+    public static int bucket(String value, int buckets) {
+        // String.hashCode is fixed by the language spec; fmix64 spreads near-identical ids such
+        // as ObjectIds created in the same second
+        long h = value.hashCode();
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (int) Math.floorMod(h, (long) buckets);
+    }
+}
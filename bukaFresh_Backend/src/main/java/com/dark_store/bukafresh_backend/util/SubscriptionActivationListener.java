@@ -0,0 +1,49 @@
+package com.dark_store.bukafresh_backend.util;
+
+import com.dark_store.bukafresh_backend.config.PaymentEventsProperties;
+import com.dark_store.bukafresh_backend.dto.event.PaymentSucceededEvent;
+import com.dark_store.bukafresh_backend.dto.event.SubscriptionActivatedEvent;
+import com.dark_store.bukafresh_backend.service.SubscriptionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First saga step: activates the subscription a payment was for and announces it. Activation is
+ * conditional and remembers the payment, so a redelivered event re-announces the same activation
+ * instead of applying it twice; a failure is rethrown so the container retries the record.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SubscriptionActivationListener {
+
+    private final SubscriptionService subscriptionService;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final PaymentEventsProperties properties;
+
+    @KafkaListener(
+            topics = "${payment.events.payment-succeeded-topic:payment.succeeded}",
+            groupId = "subscription-activation"
+    )
+    public void onPaymentSucceeded(PaymentSucceededEvent event) throws Exception {
+        if (!subscriptionService.activateFromPayment(event.subscriptionId(), event.paymentId())) {
+            log.info("Subscription {} was already active, payment {} needs no activation",
+                    event.subscriptionId(), event.paymentId());
+            return;
+        }
+
+        // Derived id, so consumers can tell a re-announcement from a new activation
+        String eventId = UUID.nameUUIDFromBytes(("activated:" + event.paymentId()).getBytes()).toString();
+        kafkaTemplate.send(
+                properties.getSubscriptionActivatedTopic(),
+                event.subscriptionId(),
+                new SubscriptionActivatedEvent(eventId, event.subscriptionId(), event.paymentId(), event.userId())
+        ).get(properties.getOutbox().getSendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
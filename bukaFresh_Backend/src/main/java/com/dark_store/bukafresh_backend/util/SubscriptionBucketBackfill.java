@@ -0,0 +1,68 @@
+package com.dark_store.bukafresh_backend.util;
+
+import com.dark_store.bukafresh_backend.model.Subscription;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Gives subscriptions created before userBucket and billingSlot existed their buckets, so
+ * partitioned jobs and billing windows see them. Safe to run on every node at once: the values
+ * depend only on the id and userId, so concurrent writes agree.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SubscriptionBucketBackfill {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Query missing = Query.query(new Criteria().orOperator(
+                        Criteria.where("userBucket").exists(false).and("userId").ne(null),
+                        Criteria.where("billingSlot").exists(false)))
+                .cursorBatchSize(BATCH_SIZE);
+        missing.fields().include("_id", "userId");
+
+        int updated = 0;
+        try (Stream<Subscription> cursor = mongoTemplate.stream(missing, Subscription.class)) {
+            Iterator<Subscription> subscriptions = cursor.iterator();
+            while (subscriptions.hasNext()) {
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Subscription.class);
+                int pending = 0;
+                while (pending < BATCH_SIZE && subscriptions.hasNext()) {
+                    Subscription subscription = subscriptions.next();
+                    Update update = new Update().set("billingSlot",
+                            StableHash.bucket(subscription.getId(), Subscription.BILLING_SLOTS));
+                    if (subscription.getUserId() != null) {
+                        update.set("userBucket", StableHash.bucket(subscription.getUserId(), Subscription.USER_BUCKETS));
+                    }
+                    bulk.updateOne(Query.query(Criteria.where("_id").is(subscription.getId())), update);
+                    pending++;
+                }
+                bulk.execute();
+                updated += pending;
+            }
+        } catch (Exception e) {
+            log.error("Subscription bucket backfill stopped after {} updates: {}", updated, e.getMessage(), e);
+            return;
+        }
+
+        if (updated > 0) {
+            log.info("Backfilled userBucket and billingSlot on {} subscriptions", updated);
+        }
+    }
+}
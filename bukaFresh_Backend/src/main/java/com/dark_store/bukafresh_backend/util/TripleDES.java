@@ -1,49 +1,52 @@
 package com.dark_store.bukafresh_backend.util;
 
-import org.apache.commons.codec.binary.Base64;
-
 import javax.crypto.Cipher;
-import javax.crypto.SecretKey;
+import javax.crypto.NoSuchPaddingException;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Base64;
 
+/**
+ * OnePipe "secure" field encryption. The key is derived once per client secret and each thread
+ * keeps its own {@link Cipher}, so a call only pays for {@code init} and {@code doFinal}.
+ */
 public final class TripleDES {
 
-    private TripleDES(){}
-
-    public static String encrypt(String accountNumber, String cbnBankCode, String secretKey) {
+    private static final IvParameterSpec ZERO_IV = new IvParameterSpec(new byte[8]);
 
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
         try {
-            String payload = accountNumber + ";" + cbnBankCode;
+            return Cipher.getInstance("DESede/CBC/PKCS5Padding");
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new IllegalStateException("DESede cipher not available", e);
+        }
+    });
 
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] digest = md.digest(
-                    secretKey.getBytes(StandardCharsets.UTF_16LE)
-            );
+    // The application signs with one client secret, so a single cached entry is enough
+    private record DerivedKey(String secret, SecretKeySpec spec) {}
+
+    private static volatile DerivedKey derivedKey;
 
-            byte[] keyBytes = Arrays.copyOf(digest, 24);
-            for (int j = 0, k = 16; j < 8;) {
-                keyBytes[k++] = keyBytes[j++];
-            }
+    private TripleDES(){}
 
-            // 3. Create Triple DES key
-            SecretKey secretKeySpec =
-                    new SecretKeySpec(keyBytes, "DESede");
+    public static String encrypt(String accountNumber, String cbnBankCode, String secretKey) {
+        return encrypt(accountNumber + ";" + cbnBankCode, secretKey);
+    }
 
-            IvParameterSpec iv = new IvParameterSpec(new byte[8]);
+    public static String encrypt(String payload, String secretKey) {
 
-            Cipher cipher =
-                    Cipher.getInstance("DESede/CBC/PKCS5Padding");
-            cipher.init(Cipher.ENCRYPT_MODE, secretKeySpec, iv);
+        try {
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, keyFor(secretKey), ZERO_IV);
 
-            // 6. Encrypt payload
             byte[] encrypted =
                     cipher.doFinal(payload.getBytes(StandardCharsets.UTF_16LE));
 
-            return Base64.encodeBase64String(encrypted);
+            return Base64.getEncoder().encodeToString(encrypted);
 
         } catch (Exception e) {
             throw new IllegalStateException(
@@ -52,39 +55,21 @@ public final class TripleDES {
         }
     }
 
-    public static String encrypt(String payload, String secretKey) {
-
-        try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] digest = md.digest(
-                    secretKey.getBytes(StandardCharsets.UTF_16LE)
-            );
-
-            byte[] keyBytes = Arrays.copyOf(digest, 24);
-            for (int j = 0, k = 16; j < 8;) {
-                keyBytes[k++] = keyBytes[j++];
-            }
-
-            // 3. Create Triple DES key
-            SecretKey secretKeySpec =
-                    new SecretKeySpec(keyBytes, "DESede");
-
-            IvParameterSpec iv = new IvParameterSpec(new byte[8]);
-
-            Cipher cipher =
-                    Cipher.getInstance("DESede/CBC/PKCS5Padding");
-            cipher.init(Cipher.ENCRYPT_MODE, secretKeySpec, iv);
+    private static SecretKeySpec keyFor(String secretKey) throws NoSuchAlgorithmException {
+        DerivedKey cached = derivedKey;
+        if (cached != null && cached.secret().equals(secretKey)) {
+            return cached.spec();
+        }
 
-            // 6. Encrypt payload
-            byte[] encrypted =
-                    cipher.doFinal(payload.getBytes(StandardCharsets.UTF_16LE));
+        // MD5 of the UTF-16LE secret, extended to 24 bytes by repeating the first 8 (K1 K2 K1)
+        byte[] digest = MessageDigest.getInstance("MD5")
+                .digest(secretKey.getBytes(StandardCharsets.UTF_16LE));
 
-            return Base64.encodeBase64String(encrypted);
+        byte[] keyBytes = Arrays.copyOf(digest, 24);
+        System.arraycopy(keyBytes, 0, keyBytes, 16, 8);
 
-        } catch (Exception e) {
-            throw new IllegalStateException(
-                    "TripleDES encryption failed", e
-            );
-        }
+        SecretKeySpec spec = new SecretKeySpec(keyBytes, "DESede");
+        derivedKey = new DerivedKey(secretKey, spec);
+        return spec;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,123 @@
+package com.dark_store.bukafresh_backend.util;
+
+import com.dark_store.bukafresh_backend.config.WebhookInboxProperties;
+import com.dark_store.bukafresh_backend.dto.onePipe.response.OnePipeWebhookPayload;
+import com.dark_store.bukafresh_backend.model.WebhookInboxEntry;
+import com.dark_store.bukafresh_backend.service.PaymentService;
+import com.dark_store.bukafresh_backend.service.WebhookDedupService;
+import com.dark_store.bukafresh_backend.service.WebhookInboxService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the webhook inbox and hands claimed entries to a {@link KeyedSerialExecutor} keyed by
+ * payment reference, so callbacks for one payment are applied in order while different payments
+ * run in parallel. Only as many entries are claimed as there are free worker slots, so at most
+ * {@code workers} entries are in flight; one can still wait briefly behind another entry on the
+ * same stripe, well within the claim lease.
+ */
+@Component
+@Slf4j
+public class WebhookInboxWorker {
+
+    private final WebhookInboxService webhookInboxService;
+    private final PaymentService paymentService;
+    private final WebhookDedupService webhookDedupService;
+    private final WebhookInboxProperties properties;
+    private final KeyedSerialExecutor executor;
+    private final Semaphore slots;
+
+    public WebhookInboxWorker(WebhookInboxService webhookInboxService,
+                              PaymentService paymentService,
+                              WebhookDedupService webhookDedupService,
+                              WebhookInboxProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.webhookInboxService = webhookInboxService;
+        this.paymentService = paymentService;
+        this.webhookDedupService = webhookDedupService;
+        this.properties = properties;
+
+        // The slots keep at most workers entries in flight, so no stripe ever queues more than that
+        this.executor = new KeyedSerialExecutor(
+                "webhook-inbox", properties.getWorkers(), properties.getWorkers());
+        Gauge.builder("webhook.inbox.queued", executor, KeyedSerialExecutor::queuedTasks)
+                .register(meterRegistry);
+        this.slots = new Semaphore(properties.getWorkers());
+    }
+
+    @Scheduled(fixedDelayString = "${webhook.inbox.poll-interval:PT1S}")
+    public void poll() {
+        try {
+            while (true) {
+                int limit = Math.min(properties.getBatchSize(), slots.availablePermits());
+                List<WebhookInboxEntry> batch = webhookInboxService.claimBatch(limit);
+
+                for (WebhookInboxEntry entry : batch) {
+                    slots.acquireUninterruptibly();
+                    try {
+                        executor.execute(entry.getPaymentReference(), () -> {
+                            try {
+                                process(entry);
+                            } finally {
+                                slots.release();
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        // Shutting down; let the entry be claimed again later
+                        slots.release();
+                        webhookInboxService.release(entry);
+                    }
+                }
+
+                // A short batch means the inbox is drained for now
+                if (batch.size() < limit || limit == 0) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Webhook inbox poll failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void process(WebhookInboxEntry entry) {
+        try {
+            // Same payload already applied on this node; the payment update would be a no-op
+            if (entry.getDedupKey() != null && webhookDedupService.isProcessed(entry.getDedupKey())) {
+                webhookInboxService.markDone(entry);
+                return;
+            }
+
+            OnePipeWebhookPayload.Details details = entry.getPayload().getDetails();
+            String responseSummary = String.format(
+                    "Amount: %s, Mandate: %s, Subscription: %s, Customer: %s",
+                    details.getAmount(),
+                    details.getMeta().getMandate_id(),
+                    details.getMeta().getSubscription_id(),
+                    details.getCustomer_ref()
+            );
+
+            paymentService.handleOnePipeCallback(details.getTransaction_ref(), details.getStatus(), responseSummary);
+            webhookInboxService.markDone(entry);
+            if (entry.getDedupKey() != null) {
+                webhookDedupService.markProcessed(entry.getDedupKey());
+            }
+        } catch (Exception e) {
+            webhookInboxService.markFailed(entry, e);
+        }
+    }
+
+    // Unfinished entries keep their lease and are reclaimed once it expires
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown(30, TimeUnit.SECONDS);
+    }
+}
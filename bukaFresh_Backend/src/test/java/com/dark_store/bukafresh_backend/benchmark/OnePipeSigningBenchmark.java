@@ -0,0 +1,109 @@
+package com.dark_store.bukafresh_backend.benchmark;
+
+import com.dark_store.bukafresh_backend.util.MD5Hash;
+import com.dark_store.bukafresh_backend.util.TripleDES;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OnePipe request signing: the previous per-call getInstance/key derivation/String.format versions
+ * against the cached key, per-thread Cipher/MessageDigest and table-driven hex in util.
+ *
+ * Run with:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.dark_store.bukafresh_backend.benchmark.OnePipeSigningBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OnePipeSigningBenchmark {
+
+    private static final String SECRET = "sk_test_4f9c2a7e1b8d4c3a9e6f";
+    private static final String REQUEST_REF = "REQ_7d2f6a1e-93b4-4c55-8f0e-2b7c1d9a4e61";
+
+    @Setup
+    public void verifyEquivalence() throws Exception {
+        if (!MD5Hash.generate(REQUEST_REF, SECRET).equals(legacySignature(REQUEST_REF, SECRET))) {
+            throw new IllegalStateException("MD5Hash output differs from the previous implementation");
+        }
+        if (!TripleDES.encrypt("0123456789", "058", SECRET).equals(legacyEncrypt("0123456789;058", SECRET))) {
+            throw new IllegalStateException("TripleDES output differs from the previous implementation");
+        }
+    }
+
+    @Benchmark
+    public String legacyMd5Signature() throws Exception {
+        return legacySignature(REQUEST_REF, SECRET);
+    }
+
+    @Benchmark
+    public String md5Signature() {
+        return MD5Hash.generate(REQUEST_REF, SECRET);
+    }
+
+    @Benchmark
+    public String legacyTripleDes() throws Exception {
+        return legacyEncrypt("0123456789;058", SECRET);
+    }
+
+    @Benchmark
+    public String tripleDes() {
+        return TripleDES.encrypt("0123456789", "058", SECRET);
+    }
+
+    private static String legacySignature(String requestRef, String clientSecret) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("MD5");
+        byte[] digest = md.digest((requestRef + ";" + clientSecret).getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static String legacyEncrypt(String payload, String secretKey) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("MD5");
+        byte[] digest = md.digest(secretKey.getBytes(StandardCharsets.UTF_16LE));
+
+        byte[] keyBytes = Arrays.copyOf(digest, 24);
+        for (int j = 0, k = 16; j < 8;) {
+            keyBytes[k++] = keyBytes[j++];
+        }
+
+        Cipher cipher = Cipher.getInstance("DESede/CBC/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(keyBytes, "DESede"), new IvParameterSpec(new byte[8]));
+        byte[] encrypted = cipher.doFinal(payload.getBytes(StandardCharsets.UTF_16LE));
+
+        return Base64.getEncoder().encodeToString(encrypted);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OnePipeSigningBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,85 @@
+package com.dark_store.bukafresh_backend.benchmark;
+
+import com.dark_store.bukafresh_backend.model.Permission;
+import com.dark_store.bukafresh_backend.model.Role;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request authorization cost: string "permissions" claim + hasAuthority() versus the "perm" bitmask.
+ *
+ * Run with:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.dark_store.bukafresh_backend.benchmark.PermissionCheckBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionCheckBenchmark {
+
+    private Claims legacyClaims;
+    private Claims maskClaims;
+    private long requiredMask;
+
+    @Setup
+    public void setUp() {
+        List<String> names = Role.ADMIN.permissions().stream().map(Enum::name).toList();
+        legacyClaims = Jwts.claims().add("permissions", names).build();
+        maskClaims = Jwts.claims().add("perm", Role.ADMIN.permissionMask()).build();
+        requiredMask = Permission.ADMIN_VIEW_ALL.bit();
+    }
+
+    @Benchmark
+    public void stringAuthorities(Blackhole bh) {
+        List<?> raw = legacyClaims.get("permissions", List.class);
+        List<GrantedAuthority> authorities = raw.stream()
+                .map(Object::toString)
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+
+        boolean granted = false;
+        for (GrantedAuthority authority : authorities) {
+            if ("ADMIN_VIEW_ALL".equals(authority.getAuthority())) {
+                granted = true;
+                break;
+            }
+        }
+        bh.consume(authorities);
+        bh.consume(granted);
+    }
+
+    @Benchmark
+    public void bitmaskAuthorities(Blackhole bh) {
+        long mask = maskClaims.get("perm", Number.class).longValue();
+        bh.consume(Permission.authoritiesOf(mask));
+        bh.consume(Permission.grants(mask, requiredMask));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PermissionCheckBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
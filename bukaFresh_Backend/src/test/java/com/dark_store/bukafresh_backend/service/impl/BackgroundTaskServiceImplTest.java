@@ -0,0 +1,72 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.config.BackgroundTaskProperties;
+import com.dark_store.bukafresh_backend.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BackgroundTaskServiceImplTest {
+
+    private static final int QUEUED = 20_000;
+
+    @Test
+    void longQueueOfInstantTasksRunsWithoutNesting() throws InterruptedException {
+        BackgroundTaskServiceImpl service = service(new BackgroundTaskProperties.Category(
+                1, QUEUED, BackgroundTaskProperties.Overflow.REJECT, Duration.ofSeconds(10)));
+        Sinks.Empty<Void> gate = Sinks.empty();
+        CountDownLatch finished = new CountDownLatch(QUEUED);
+
+        service.submit("test", "gate", gate.asMono());
+        for (int i = 0; i < QUEUED; i++) {
+            service.submit("test", "instant", Mono.fromRunnable(finished::countDown));
+        }
+        gate.tryEmitEmpty();
+
+        assertThat(finished.await(30, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void fullQueueRejects() {
+        BackgroundTaskServiceImpl service = service(new BackgroundTaskProperties.Category(
+                1, 1, BackgroundTaskProperties.Overflow.REJECT, Duration.ofSeconds(10)));
+
+        service.submit("test", "running", Mono.never());
+        service.submit("test", "queued", Mono.never());
+
+        assertThatThrownBy(() -> service.submit("test", "overflow", Mono.never()))
+                .isInstanceOf(ServiceBusyException.class);
+    }
+
+    @Test
+    void drainingRefusesNewWork() throws InterruptedException {
+        BackgroundTaskProperties properties = properties(new BackgroundTaskProperties.Category(
+                1, 1, BackgroundTaskProperties.Overflow.REJECT, Duration.ofSeconds(10)));
+        properties.setDrainTimeout(Duration.ofMillis(100));
+        BackgroundTaskServiceImpl service = new BackgroundTaskServiceImpl(properties, new SimpleMeterRegistry());
+
+        service.drain();
+
+        assertThatThrownBy(() -> service.submit("test", "late", Mono.empty()))
+                .isInstanceOf(ServiceBusyException.class);
+    }
+
+    private static BackgroundTaskServiceImpl service(BackgroundTaskProperties.Category category) {
+        return new BackgroundTaskServiceImpl(properties(category), new SimpleMeterRegistry());
+    }
+
+    private static BackgroundTaskProperties properties(BackgroundTaskProperties.Category category) {
+        BackgroundTaskProperties properties = new BackgroundTaskProperties();
+        properties.setCategories(Map.of("test", category));
+        return properties;
+    }
+}
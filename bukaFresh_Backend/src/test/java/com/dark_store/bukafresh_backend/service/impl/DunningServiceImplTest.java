@@ -0,0 +1,276 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.config.DunningProperties;
+import com.dark_store.bukafresh_backend.model.Payment;
+import com.dark_store.bukafresh_backend.model.PaymentRetry;
+import com.dark_store.bukafresh_backend.model.Subscription;
+import com.dark_store.bukafresh_backend.repository.PaymentRepository;
+import com.dark_store.bukafresh_backend.repository.PaymentRetryRepository;
+import com.dark_store.bukafresh_backend.repository.SubscriptionRepository;
+import com.dark_store.bukafresh_backend.service.MandateDebitService;
+import com.dark_store.bukafresh_backend.service.PaymentService;
+import com.dark_store.bukafresh_backend.service.SubscriptionService;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DunningServiceImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private PaymentRetryRepository paymentRetryRepository;
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private PaymentService paymentService;
+
+    @Mock
+    private SubscriptionService subscriptionService;
+
+    @Mock
+    private MandateDebitService mandateDebitService;
+
+    private final DunningProperties properties = new DunningProperties();
+
+    private DunningServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DunningServiceImpl(mongoTemplate, paymentRetryRepository, paymentRepository,
+                subscriptionRepository, paymentService, subscriptionService, mandateDebitService,
+                properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void failedRecurringChargeSchedulesTheFirstRetry() {
+        Payment failed = failedCharge();
+        when(paymentRepository.findById("pay-1")).thenReturn(Optional.of(failed));
+
+        service.onPaymentFailed("pay-1");
+
+        ArgumentCaptor<PaymentRetry> retry = ArgumentCaptor.forClass(PaymentRetry.class);
+        verify(paymentRetryRepository).insert(retry.capture());
+        assertThat(retry.getValue().getId()).isEqualTo("pay-1");
+        assertThat(retry.getValue().getState()).isEqualTo(PaymentRetry.SCHEDULED);
+        assertThat(retry.getValue().getAttempts()).isZero();
+        assertThat(retry.getValue().getNextAttemptAt())
+                .isCloseTo(Instant.now().plus(Duration.ofDays(1)), within(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void redeliveredFailureIsANoOp() {
+        when(paymentRepository.findById("pay-1")).thenReturn(Optional.of(failedCharge()));
+        when(paymentRetryRepository.insert(any(PaymentRetry.class))).thenThrow(new DuplicateKeyException("exists"));
+
+        service.onPaymentFailed("pay-1");
+
+        verify(subscriptionService, never()).suspendForNonPayment(anyString(), anyString());
+    }
+
+    @Test
+    void failedFirstPaymentIsNotRetried() {
+        Payment failed = failedCharge();
+        failed.setIdempotencyKey(PaymentService.CLIENT_KEY_PREFIX + "user-1:abc");
+        when(paymentRepository.findById("pay-1")).thenReturn(Optional.of(failed));
+
+        service.onPaymentFailed("pay-1");
+
+        verify(paymentRetryRepository, never()).insert(any(PaymentRetry.class));
+    }
+
+    @Test
+    void failedAttemptIsRescheduledWhileRetriesRemain() {
+        when(paymentRepository.findById("attempt-1")).thenReturn(Optional.of(failedAttempt("attempt-1")));
+        when(paymentRetryRepository.findById("pay-1")).thenReturn(Optional.of(awaiting(1, "attempt-1")));
+        updatesApply(true);
+
+        service.onPaymentFailed("attempt-1");
+
+        Document set = capturedSet();
+        assertThat(set.get("state")).isEqualTo(PaymentRetry.SCHEDULED);
+        verify(subscriptionService, never()).suspendForNonPayment(anyString(), anyString());
+    }
+
+    @Test
+    void lastFailedAttemptSuspendsTheSubscription() {
+        when(paymentRepository.findById("attempt-3")).thenReturn(Optional.of(failedAttempt("attempt-3")));
+        when(paymentRetryRepository.findById("pay-1")).thenReturn(Optional.of(awaiting(3, "attempt-3")));
+        updatesApply(true);
+
+        service.onPaymentFailed("attempt-3");
+
+        verify(subscriptionService).suspendForNonPayment("sub-1", properties.getExhaustedStatus());
+        assertThat(capturedSet().get("state")).isEqualTo(PaymentRetry.EXHAUSTED);
+    }
+
+    @Test
+    void failureOfASupersededAttemptIsIgnored() {
+        when(paymentRepository.findById("attempt-1")).thenReturn(Optional.of(failedAttempt("attempt-1")));
+        when(paymentRetryRepository.findById("pay-1")).thenReturn(Optional.of(awaiting(2, "attempt-2")));
+
+        service.onPaymentFailed("attempt-1");
+
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(PaymentRetry.class));
+    }
+
+    @Test
+    void successfulAttemptRecoversTheRetry() {
+        Payment attempt = failedAttempt("attempt-1");
+        attempt.setStatus("PAID");
+        when(paymentRepository.findById("attempt-1")).thenReturn(Optional.of(attempt));
+        updatesApply(true);
+
+        service.onPaymentSucceeded("attempt-1");
+
+        assertThat(capturedSet().get("state")).isEqualTo(PaymentRetry.RECOVERED);
+    }
+
+    @Test
+    void dueRetryIsClaimedAndDebited() {
+        PaymentRetry retry = scheduled();
+        Payment attempt = Payment.builder().id("attempt-1").status("PENDING").paymentReference("PAY_A1").build();
+        dueRetries(retry);
+        when(subscriptionRepository.findById("sub-1")).thenReturn(Optional.of(activeSubscription()));
+        when(paymentRepository.findById("pay-1")).thenReturn(Optional.of(failedCharge()));
+        when(paymentService.createRetryPayment(any(Payment.class), eq(1)))
+                .thenReturn(new PaymentService.CyclePayment(attempt, true));
+        updatesApply(true);
+        when(mandateDebitService.debit("user-1", "mandate-1", attempt)).thenReturn(Mono.just(MandateDebitService.SUBMITTED));
+
+        assertThat(service.processDueRetries(0, 1, () -> true)).isEqualTo(1);
+
+        assertThat(capturedSet().get("state")).isEqualTo(PaymentRetry.AWAITING_RESULT);
+        verify(mandateDebitService).debit("user-1", "mandate-1", attempt);
+    }
+
+    @Test
+    void retryClaimedByAnotherWorkerIsNotDebited() {
+        PaymentRetry retry = scheduled();
+        Payment attempt = Payment.builder().id("attempt-1").status("PENDING").build();
+        dueRetries(retry);
+        when(subscriptionRepository.findById("sub-1")).thenReturn(Optional.of(activeSubscription()));
+        when(paymentRepository.findById("pay-1")).thenReturn(Optional.of(failedCharge()));
+        when(paymentService.createRetryPayment(any(Payment.class), eq(1)))
+                .thenReturn(new PaymentService.CyclePayment(attempt, false));
+        updatesApply(false);
+
+        service.processDueRetries(0, 1, () -> true);
+
+        verify(mandateDebitService, never()).debit(anyString(), anyString(), any(Payment.class));
+    }
+
+    @Test
+    void retryForAnInactiveSubscriptionIsClosed() {
+        dueRetries(scheduled());
+        Subscription subscription = activeSubscription();
+        subscription.setStatus("CANCELED");
+        when(subscriptionRepository.findById("sub-1")).thenReturn(Optional.of(subscription));
+        updatesApply(true);
+
+        service.processDueRetries(0, 1, () -> true);
+
+        assertThat(capturedSet().get("state")).isEqualTo(PaymentRetry.EXHAUSTED);
+        verify(mandateDebitService, never()).debit(anyString(), anyString(), any(Payment.class));
+    }
+
+    private void updatesApply(boolean applied) {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(PaymentRetry.class)))
+                .thenReturn(UpdateResult.acknowledged(applied ? 1 : 0, applied ? 1L : 0L, null));
+    }
+
+    private void dueRetries(PaymentRetry... retries) {
+        when(mongoTemplate.stream(any(Query.class), eq(PaymentRetry.class))).thenReturn(Stream.of(retries));
+    }
+
+    private Document capturedSet() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(PaymentRetry.class));
+        return (Document) update.getValue().getUpdateObject().get("$set");
+    }
+
+    private static Payment failedCharge() {
+        return Payment.builder()
+                .id("pay-1")
+                .userId("user-1")
+                .subscriptionId("sub-1")
+                .amount(new BigDecimal("8000"))
+                .status("FAILED")
+                .idempotencyKey(PaymentService.CYCLE_KEY_PREFIX + "sub-1:2026-10-01")
+                .build();
+    }
+
+    private static Payment failedAttempt(String id) {
+        return Payment.builder()
+                .id(id)
+                .subscriptionId("sub-1")
+                .status("FAILED")
+                .retryOf("pay-1")
+                .failureReason("Insufficient funds")
+                .build();
+    }
+
+    private static PaymentRetry awaiting(int attempts, String currentPaymentId) {
+        return PaymentRetry.builder()
+                .id("pay-1")
+                .subscriptionId("sub-1")
+                .state(PaymentRetry.AWAITING_RESULT)
+                .attempts(attempts)
+                .currentPaymentId(currentPaymentId)
+                .firstFailedAt(Instant.now().minus(Duration.ofDays(2)))
+                .build();
+    }
+
+    private static PaymentRetry scheduled() {
+        return PaymentRetry.builder()
+                .id("pay-1")
+                .subscriptionId("sub-1")
+                .state(PaymentRetry.SCHEDULED)
+                .attempts(0)
+                .firstFailedAt(Instant.now().minus(Duration.ofDays(1)))
+                .nextAttemptAt(Instant.now())
+                .build();
+    }
+
+    private static Subscription activeSubscription() {
+        Subscription subscription = new Subscription();
+        subscription.setId("sub-1");
+        subscription.setUserId("user-1");
+        subscription.setStatus("ACTIVE");
+        subscription.setMandateId("mandate-1");
+        return subscription;
+    }
+}
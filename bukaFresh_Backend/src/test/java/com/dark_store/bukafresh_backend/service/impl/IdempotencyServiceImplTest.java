@@ -0,0 +1,156 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.model.IdempotencyRecord;
+import com.dark_store.bukafresh_backend.service.IdempotencyService.Claim;
+import com.dark_store.bukafresh_backend.service.IdempotencyService.Snapshot;
+import com.dark_store.bukafresh_backend.service.IdempotencyService.Status;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private IdempotencyServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new IdempotencyServiceImpl(mongoTemplate, new SimpleMeterRegistry(),
+                Duration.ofHours(24), Duration.ofMinutes(2), Duration.ofMinutes(10), 100);
+    }
+
+    @Test
+    void firstRequestAcquiresWithALease() {
+        Claim claim = begin("hash-1");
+
+        ArgumentCaptor<IdempotencyRecord> inserted = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(mongoTemplate).insert(inserted.capture());
+        assertThat(claim.status()).isEqualTo(Status.ACQUIRED);
+        assertThat(claim.lockId()).isEqualTo(inserted.getValue().getLockId());
+        assertThat(inserted.getValue().getState()).isEqualTo(IdempotencyRecord.IN_PROGRESS);
+        assertThat(inserted.getValue().getLockedUntil()).isAfter(Instant.now());
+    }
+
+    @Test
+    void completedRequestIsReplayedAndThenServedFromTheNearCache() {
+        existing(IdempotencyRecord.builder()
+                .requestHash("hash-1")
+                .state(IdempotencyRecord.COMPLETED)
+                .responseStatus(201)
+                .responseBody("{}")
+                .build());
+
+        Claim first = begin("hash-1");
+        Claim second = begin("hash-1");
+
+        assertThat(first.status()).isEqualTo(Status.REPLAY);
+        assertThat(first.snapshot().status()).isEqualTo(201);
+        assertThat(second.status()).isEqualTo(Status.REPLAY);
+        verify(mongoTemplate, times(1)).findById(anyString(), eq(IdempotencyRecord.class));
+    }
+
+    @Test
+    void differentRequestWithTheSameKeyIsAMismatch() {
+        existing(IdempotencyRecord.builder()
+                .requestHash("hash-1")
+                .state(IdempotencyRecord.IN_PROGRESS)
+                .lockedUntil(Instant.now().minusSeconds(60))
+                .build());
+
+        assertThat(begin("hash-2").status()).isEqualTo(Status.MISMATCH);
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+    }
+
+    @Test
+    void runningRequestWithALiveLeaseIsInProgress() {
+        existing(IdempotencyRecord.builder()
+                .requestHash("hash-1")
+                .state(IdempotencyRecord.IN_PROGRESS)
+                .lockedUntil(Instant.now().plusSeconds(60))
+                .build());
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), eq(IdempotencyRecord.class)))
+                .thenReturn(null);
+
+        assertThat(begin("hash-1").status()).isEqualTo(Status.IN_PROGRESS);
+    }
+
+    @Test
+    void expiredLeaseIsTakenOver() {
+        IdempotencyRecord abandoned = IdempotencyRecord.builder()
+                .requestHash("hash-1")
+                .state(IdempotencyRecord.IN_PROGRESS)
+                .lockId("crashed-holder")
+                .lockedUntil(Instant.now().minusSeconds(60))
+                .build();
+        existing(abandoned);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), eq(IdempotencyRecord.class)))
+                .thenReturn(abandoned);
+
+        Claim claim = begin("hash-1");
+
+        ArgumentCaptor<Query> takeover = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findAndModify(takeover.capture(), any(Update.class), eq(IdempotencyRecord.class));
+        assertThat(claim.status()).isEqualTo(Status.ACQUIRED);
+        assertThat(claim.lockId()).isNotEqualTo("crashed-holder");
+        assertThat(takeover.getValue().getQueryObject()).containsKeys("state", "requestHash", "lockedUntil");
+    }
+
+    @Test
+    void completingAfterATakeoverKeepsNothingCached() {
+        Claim claim = begin("hash-1");
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        service.complete(claim.recordId(), claim.lockId(), "hash-1", new Snapshot(200, null, "{}"));
+
+        // Not replayed from the near-cache; the next request goes back to MongoDB
+        when(mongoTemplate.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("exists"));
+        when(mongoTemplate.findById(anyString(), eq(IdempotencyRecord.class))).thenReturn(null);
+        assertThat(begin("hash-1").status()).isEqualTo(Status.IN_PROGRESS);
+    }
+
+    @Test
+    void completedRequestIsCached() {
+        Claim claim = begin("hash-1");
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        service.complete(claim.recordId(), claim.lockId(), "hash-1", new Snapshot(200, null, "{}"));
+
+        assertThat(begin("hash-1").status()).isEqualTo(Status.REPLAY);
+        verify(mongoTemplate, times(1)).insert(any(IdempotencyRecord.class));
+    }
+
+    private Claim begin(String requestHash) {
+        return service.begin("user-1", "POST", "/api/payments", "key-1", requestHash);
+    }
+
+    private void existing(IdempotencyRecord record) {
+        when(mongoTemplate.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("exists"));
+        when(mongoTemplate.findById(anyString(), eq(IdempotencyRecord.class))).thenReturn(record);
+    }
+}
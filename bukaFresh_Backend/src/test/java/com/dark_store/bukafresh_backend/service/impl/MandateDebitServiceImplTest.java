@@ -0,0 +1,185 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.config.BillingProperties;
+import com.dark_store.bukafresh_backend.dto.onePipe.response.OnePipeResponse;
+import com.dark_store.bukafresh_backend.exception.ResourceNotFoundException;
+import com.dark_store.bukafresh_backend.model.Payment;
+import com.dark_store.bukafresh_backend.service.MandateDebitService;
+import com.dark_store.bukafresh_backend.service.OnePipeService;
+import com.dark_store.bukafresh_backend.service.PaymentService;
+import com.dark_store.bukafresh_backend.service.RateLimiter;
+import io.netty.channel.ConnectTimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ConnectException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MandateDebitServiceImplTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Mock
+    private OnePipeService onePipeService;
+
+    @Mock
+    private PaymentService paymentService;
+
+    @Mock
+    private RateLimiter rateLimiter;
+
+    private MandateDebitServiceImpl service;
+
+    private final Payment payment = Payment.builder()
+            .id("pay-1")
+            .paymentReference("PAY_1")
+            .amount(new BigDecimal("8000"))
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        service = new MandateDebitServiceImpl(onePipeService, paymentService, rateLimiter, new BillingProperties());
+        when(rateLimiter.tryAcquire(anyString(), anyInt(), any(Duration.class))).thenReturn(0L);
+    }
+
+    @Test
+    void immediateSuccessSettlesThePayment() {
+        collectReturns("Successful");
+
+        assertThat(debit()).isEqualTo(MandateDebitService.PAID);
+        verify(paymentService).handleOnePipeCallback(eq("PAY_1"), eq("Successful"), anyString());
+    }
+
+    @Test
+    void immediateDeclineSettlesThePayment() {
+        collectReturns("Declined");
+
+        assertThat(debit()).isEqualTo(MandateDebitService.DECLINED);
+        verify(paymentService).handleOnePipeCallback(eq("PAY_1"), eq("Declined"), anyString());
+    }
+
+    @Test
+    void acceptedDebitWaitsForTheWebhook() {
+        collectReturns("Pending");
+
+        assertThat(debit()).isEqualTo(MandateDebitService.SUBMITTED);
+        verify(paymentService, never()).handleOnePipeCallback(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void refusedConnectionFailsThePayment() {
+        collectFails(new WebClientRequestException(new ConnectException("refused"),
+                HttpMethod.POST, URI.create("https://onepipe/v2/transact"), new HttpHeaders()));
+
+        assertNeverSent();
+    }
+
+    @Test
+    void connectTimeoutFailsThePayment() {
+        collectFails(new WebClientRequestException(new ConnectTimeoutException("timed out"),
+                HttpMethod.POST, URI.create("https://onepipe/v2/transact"), new HttpHeaders()));
+
+        assertNeverSent();
+    }
+
+    @Test
+    void clientErrorFailsThePayment() {
+        collectFails(WebClientResponseException.create(400, "Bad Request", new HttpHeaders(), new byte[0],
+                StandardCharsets.UTF_8));
+
+        assertNeverSent();
+    }
+
+    @Test
+    void missingProfileFailsThePayment() {
+        collectFails(new ResourceNotFoundException("Profile not found"));
+
+        assertNeverSent();
+    }
+
+    @Test
+    void subKoboAmountFailsThePayment() {
+        when(onePipeService.collect(anyString(), anyString(), anyString(), any(BigDecimal.class)))
+                .thenThrow(new ArithmeticException("Rounding necessary"));
+
+        assertNeverSent();
+    }
+
+    @Test
+    void throttledRequestIsLeftPending() {
+        collectFails(WebClientResponseException.create(429, "Too Many Requests", new HttpHeaders(), new byte[0],
+                StandardCharsets.UTF_8));
+
+        assertUnknown();
+    }
+
+    @Test
+    void serverErrorIsLeftPending() {
+        collectFails(WebClientResponseException.create(502, "Bad Gateway", new HttpHeaders(), new byte[0],
+                StandardCharsets.UTF_8));
+
+        assertUnknown();
+    }
+
+    @Test
+    void readFailureAfterSendingIsLeftPending() {
+        collectFails(new WebClientRequestException(new IOException("connection reset"),
+                HttpMethod.POST, URI.create("https://onepipe/v2/transact"), new HttpHeaders()));
+
+        assertUnknown();
+    }
+
+    @Test
+    void responseTimeoutIsLeftPending() {
+        collectFails(new TimeoutException("no response"));
+
+        assertUnknown();
+    }
+
+    private void assertNeverSent() {
+        assertThat(debit()).isEqualTo(MandateDebitService.DECLINED);
+        verify(paymentService).handleOnePipeCallback(eq("PAY_1"), eq("FAILED"), anyString());
+    }
+
+    private void assertUnknown() {
+        assertThat(debit()).isEqualTo(MandateDebitService.UNKNOWN);
+        verify(paymentService, never()).handleOnePipeCallback(anyString(), anyString(), anyString());
+    }
+
+    private String debit() {
+        return service.debit("user-1", "mandate-1", payment).block(TIMEOUT);
+    }
+
+    private void collectReturns(String status) {
+        OnePipeResponse response = new OnePipeResponse();
+        response.setStatus(status);
+        when(onePipeService.collect("user-1", "mandate-1", "PAY_1", payment.getAmount())).thenReturn(Mono.just(response));
+    }
+
+    private void collectFails(Throwable error) {
+        when(onePipeService.collect("user-1", "mandate-1", "PAY_1", payment.getAmount())).thenReturn(Mono.error(error));
+    }
+}
@@ -0,0 +1,102 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.config.PaymentEventsProperties;
+import com.dark_store.bukafresh_backend.model.OutboxEvent;
+import com.dark_store.bukafresh_backend.model.Payment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentOutboxServiceImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private final PaymentEventsProperties properties = new PaymentEventsProperties();
+
+    private PaymentOutboxServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PaymentOutboxServiceImpl(mongoTemplate, kafkaTemplate, properties, new SimpleMeterRegistry());
+        List<Payment> claimed = List.of(payment("pay-1"), payment("pay-2"), payment("pay-3"));
+        when(mongoTemplate.find(any(Query.class), eq(Payment.class))).thenReturn(claimed);
+    }
+
+    @Test
+    void acknowledgedEventsAreCleared() {
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(service.relayBatch()).isEqualTo(3);
+
+        verify(kafkaTemplate, times(3)).send(anyString(), anyString(), any());
+        verify(mongoTemplate, times(3)).updateFirst(any(Query.class), any(Update.class), eq(Payment.class));
+    }
+
+    @Test
+    void batchStopsAtTheFirstSendThatFailsImmediately() {
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.<SendResult<String, Object>>failedFuture(
+                        new TimeoutException("Topic not present in metadata after 5000 ms")));
+
+        service.relayBatch();
+
+        verify(kafkaTemplate, times(1)).send(anyString(), anyString(), any());
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Payment.class));
+    }
+
+    @Test
+    void batchThatCannotFinishWithinTheLeaseSendsNothingMore() {
+        // Half the lease leaves less room than one blocked send needs
+        properties.getOutbox().setLease(Duration.ofSeconds(8));
+        properties.getOutbox().setMaxBlock(Duration.ofSeconds(5));
+
+        service.relayBatch();
+
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+    }
+
+    private static Payment payment(String id) {
+        return Payment.builder()
+                .id(id)
+                .subscriptionId("sub-" + id)
+                .userId("user-1")
+                .amount(new BigDecimal("8000"))
+                .paidAt(LocalDateTime.now())
+                .outboxClaimId("claim-1")
+                .outbox(List.of(OutboxEvent.builder()
+                        .eventId("evt-" + id)
+                        .type(OutboxEvent.PAYMENT_SUCCEEDED)
+                        .createdAt(LocalDateTime.now())
+                        .build()))
+                .build();
+    }
+}
@@ -0,0 +1,133 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.config.PaymentReconciliationProperties;
+import com.dark_store.bukafresh_backend.dto.onePipe.response.OnePipeResponse;
+import com.dark_store.bukafresh_backend.model.Payment;
+import com.dark_store.bukafresh_backend.repository.JobCheckpointRepository;
+import com.dark_store.bukafresh_backend.service.OnePipeService;
+import com.dark_store.bukafresh_backend.service.PaymentService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentReconciliationServiceImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @Mock
+    private OnePipeService onePipeService;
+
+    @Mock
+    private PaymentService paymentService;
+
+    private PaymentReconciliationServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PaymentReconciliationServiceImpl(mongoTemplate, jobCheckpointRepository, onePipeService,
+                paymentService, new PaymentReconciliationProperties(), new SimpleMeterRegistry());
+        when(jobCheckpointRepository.findById("payment-reconciliation")).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void staleCollectPaymentIsQueriedAsCollectAndSettled() {
+        stalePayments(payment("pay-1", "PAY_1", PaymentService.CYCLE_KEY_PREFIX + "sub-1:2026-10-01"));
+        when(onePipeService.queryTransaction("PAY_1", OnePipeService.COLLECT)).thenReturn(Mono.just(response("Successful")));
+
+        int checked = service.reconcileStalePayments(() -> true);
+
+        assertThat(checked).isEqualTo(1);
+        verify(paymentService).handleOnePipeCallback(eq("PAY_1"), eq("Successful"), anyString());
+        verify(jobCheckpointRepository).deleteById("payment-reconciliation");
+    }
+
+    @Test
+    void dunningRetryIsQueriedAsCollect() {
+        stalePayments(payment("pay-2", "PAY_2", PaymentService.RETRY_KEY_PREFIX + "pay-1:1"));
+        when(onePipeService.queryTransaction("PAY_2", OnePipeService.COLLECT)).thenReturn(Mono.just(response("Failed")));
+
+        service.reconcileStalePayments(() -> true);
+
+        verify(paymentService).handleOnePipeCallback(eq("PAY_2"), eq("Failed"), anyString());
+    }
+
+    @Test
+    void clientPaymentIsQueriedAsInvoice() {
+        stalePayments(payment("pay-3", "PAY_3", PaymentService.CLIENT_KEY_PREFIX + "user-1:abc"));
+        when(onePipeService.queryTransaction("PAY_3", OnePipeService.SEND_INVOICE))
+                .thenReturn(Mono.just(response("Successful")));
+
+        service.reconcileStalePayments(() -> true);
+
+        verify(paymentService).handleOnePipeCallback(eq("PAY_3"), eq("Successful"), anyString());
+    }
+
+    @Test
+    void stillPendingAtOnePipeIsLeftAlone() {
+        stalePayments(payment("pay-4", "PAY_4", PaymentService.CYCLE_KEY_PREFIX + "sub-4:2026-10-01"));
+        when(onePipeService.queryTransaction("PAY_4", OnePipeService.COLLECT)).thenReturn(Mono.just(response("Pending")));
+
+        service.reconcileStalePayments(() -> true);
+
+        verify(paymentService, never()).handleOnePipeCallback(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void lostLeaseSkipsTheCheckpoint() {
+        stalePayments(payment("pay-5", "PAY_5", PaymentService.CYCLE_KEY_PREFIX + "sub-5:2026-10-01"));
+        when(onePipeService.queryTransaction("PAY_5", OnePipeService.COLLECT)).thenReturn(Mono.just(response("Pending")));
+        boolean[] held = {true};
+
+        service.reconcileStalePayments(() -> {
+            boolean current = held[0];
+            held[0] = false;
+            return current;
+        });
+
+        verify(jobCheckpointRepository, never()).save(any());
+        verify(jobCheckpointRepository, never()).deleteById(anyString());
+    }
+
+    private void stalePayments(Payment... payments) {
+        when(mongoTemplate.stream(any(Query.class), eq(Payment.class))).thenReturn(Stream.of(payments));
+    }
+
+    private static Payment payment(String id, String reference, String idempotencyKey) {
+        return Payment.builder()
+                .id(id)
+                .paymentReference(reference)
+                .idempotencyKey(idempotencyKey)
+                .createdAt(LocalDateTime.now().minusHours(1))
+                .build();
+    }
+
+    private static OnePipeResponse response(String status) {
+        OnePipeResponse response = new OnePipeResponse();
+        response.setStatus(status);
+        response.setMessage(status);
+        return response;
+    }
+}
@@ -0,0 +1,161 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.config.SettlementProperties;
+import com.dark_store.bukafresh_backend.dto.response.SettlementReconciliationResponse;
+import com.dark_store.bukafresh_backend.model.Payment;
+import com.dark_store.bukafresh_backend.model.SettlementReference;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SettlementReconciliationServiceImplTest {
+
+    @TempDir
+    private Path inbox;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private SettlementReconciliationServiceImpl service;
+
+    // Stands in for the unique _id on settlement_references
+    private final Set<String> storedReferences = new HashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        SettlementProperties properties = new SettlementProperties();
+        properties.setInboxDir(inbox.toString());
+        properties.setChunkSize(2);
+        service = new SettlementReconciliationServiceImpl(mongoTemplate, properties);
+
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SettlementReference.class))
+                .thenAnswer(invocation -> bulkInsert());
+        when(mongoTemplate.find(any(Query.class), eq(Payment.class))).thenReturn(List.of(
+                payment("PAY_1", "PAID", "800"),
+                payment("PAY_2", "PAID", "800"),
+                payment("PAY_3", "PAID", "800")
+        ));
+    }
+
+    @Test
+    void duplicateInALaterChunkIsReportedOnce() throws IOException {
+        SettlementReconciliationResponse response = service.reconcile(settlement(
+                "PAY_1,80000,SUCCESSFUL",
+                "PAY_2,80000,SUCCESSFUL",
+                "PAY_3,80000,SUCCESSFUL",
+                "PAY_1,80000,SUCCESSFUL"
+        ));
+
+        assertThat(response.getRowsRead()).isEqualTo(4);
+        assertThat(response.getMatched()).isEqualTo(3);
+        assertThat(response.getDuplicates()).isEqualTo(1);
+        assertThat(response.getMissing()).isZero();
+        assertThat(Files.readAllLines(inbox.resolve(response.getReportFile())))
+                .anyMatch(line -> line.startsWith("5,PAY_1,DUPLICATE"));
+    }
+
+    @Test
+    void duplicateWithinAChunkIsReported() {
+        SettlementReconciliationResponse response = service.reconcile(settlement(
+                "PAY_1,80000,SUCCESSFUL",
+                "PAY_1,80000,SUCCESSFUL",
+                "PAY_2,80000,SUCCESSFUL"
+        ));
+
+        assertThat(response.getMatched()).isEqualTo(2);
+        assertThat(response.getDuplicates()).isEqualTo(1);
+    }
+
+    @Test
+    void mismatchesAndMissingRowsAreCounted() {
+        SettlementReconciliationResponse response = service.reconcile(settlement(
+                "PAY_1,90000,SUCCESSFUL",
+                "PAY_2,80000,FAILED",
+                "PAY_9,80000,SUCCESSFUL"
+        ));
+
+        assertThat(response.getAmountMismatches()).isEqualTo(1);
+        assertThat(response.getStatusMismatches()).isEqualTo(1);
+        assertThat(response.getMissing()).isEqualTo(1);
+        assertThat(response.getDuplicates()).isZero();
+    }
+
+    @Test
+    void runReferencesAreRemovedAfterwards() {
+        service.reconcile(settlement("PAY_1,80000,SUCCESSFUL"));
+
+        verify(mongoTemplate).remove(any(Query.class), eq(SettlementReference.class));
+    }
+
+    private String settlement(String... rows) {
+        try {
+            List<String> lines = new ArrayList<>();
+            lines.add("transaction_ref,amount,status");
+            lines.addAll(List.of(rows));
+            Files.write(inbox.resolve("settlement.csv"), lines);
+            return "settlement.csv";
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private BulkOperations bulkInsert() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        List<SettlementReference> inserts = new ArrayList<>();
+        when(bulk.insert(any(Object.class))).thenAnswer(invocation -> {
+            inserts.add(invocation.getArgument(0));
+            return bulk;
+        });
+        when(bulk.execute()).thenAnswer(invocation -> {
+            List<BulkWriteError> errors = new ArrayList<>();
+            for (int i = 0; i < inserts.size(); i++) {
+                if (!storedReferences.add(inserts.get(i).getId())) {
+                    errors.add(new BulkWriteError(11000, "duplicate key", new BsonDocument(), i));
+                }
+            }
+            if (!errors.isEmpty()) {
+                throw new BulkOperationException("duplicate key", new MongoBulkWriteException(
+                        BulkWriteResult.unacknowledged(), errors, null, new ServerAddress(), Set.of()));
+            }
+            return BulkWriteResult.unacknowledged();
+        });
+        return bulk;
+    }
+
+    private static Payment payment(String reference, String status, String amount) {
+        return Payment.builder()
+                .paymentReference(reference)
+                .status(status)
+                .amount(new BigDecimal(amount))
+                .build();
+    }
+}
@@ -0,0 +1,252 @@
+package com.dark_store.bukafresh_backend.service.impl;
+
+import com.dark_store.bukafresh_backend.dto.response.SubscriptionResponse;
+import com.dark_store.bukafresh_backend.exception.BusinessException;
+import com.dark_store.bukafresh_backend.exception.ResourceNotFoundException;
+import com.dark_store.bukafresh_backend.model.Subscription;
+import com.dark_store.bukafresh_backend.model.SubscriptionStatus;
+import com.dark_store.bukafresh_backend.repository.AddressRepository;
+import com.dark_store.bukafresh_backend.repository.SubscriptionRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SubscriptionServiceImplTest {
+
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private AddressRepository addressRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private SubscriptionServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SubscriptionServiceImpl(subscriptionRepository, addressRepository, mongoTemplate);
+    }
+
+    @Test
+    void pauseIsConditionalOnTheAllowedSourcesAndRecorded() {
+        transitionReturns(subscription(SubscriptionStatus.PAUSED));
+
+        SubscriptionResponse response = service.pauseSubscription("sub-1");
+
+        assertThat(response.getStatus()).isEqualTo(SubscriptionStatus.PAUSED);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(),
+                any(FindAndModifyOptions.class), eq(Subscription.class));
+        assertThat((Collection<Object>) ((Document) query.getValue().getQueryObject().get("status")).get("$in"))
+                .containsExactly(SubscriptionStatus.ACTIVE);
+        assertThat(((Document) update.getValue().getUpdateObject().get("$set")).get("status"))
+                .isEqualTo(SubscriptionStatus.PAUSED);
+        assertThat(update.getValue().getUpdateObject()).containsKey("$push");
+    }
+
+    @Test
+    void refusedTransitionReportsTheCurrentStatus() {
+        transitionReturns(null);
+        when(subscriptionRepository.findById("sub-1")).thenReturn(Optional.of(subscription(SubscriptionStatus.CANCELED)));
+
+        assertThatThrownBy(() -> service.pauseSubscription("sub-1"))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Cannot move subscription from CANCELED to PAUSED");
+    }
+
+    @Test
+    void transitionOfAMissingSubscriptionIsNotFound() {
+        transitionReturns(null);
+        when(subscriptionRepository.findById("sub-1")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.resumeSubscription("sub-1"))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void unsupportedTargetStatusIsRejectedWithoutAWrite() {
+        assertThatThrownBy(() -> service.updateSubscriptionStatus("sub-1", SubscriptionStatus.PENDING))
+                .isInstanceOf(BusinessException.class);
+
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Subscription.class));
+    }
+
+    @Test
+    void resumeBlockedByAnotherOpenSubscriptionIsABusinessError() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Subscription.class)))
+                .thenThrow(new DuplicateKeyException("user_open_subscription"));
+
+        assertThatThrownBy(() -> service.resumeSubscription("sub-1"))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("another open subscription");
+    }
+
+    @Test
+    void onlyOneOfTwoConcurrentCancelsWins() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Subscription.class)))
+                .thenReturn(subscription(SubscriptionStatus.CANCELED))
+                .thenReturn(null);
+        when(subscriptionRepository.findById("sub-1")).thenReturn(Optional.of(subscription(SubscriptionStatus.CANCELED)));
+
+        assertThat(service.cancelSubscription("sub-1").getStatus()).isEqualTo(SubscriptionStatus.CANCELED);
+        assertThatThrownBy(() -> service.cancelSubscription("sub-1"))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Cannot move subscription from CANCELED to CANCELED");
+    }
+
+    @Test
+    void redeliveredActivatingPaymentIsANoOp() {
+        Subscription active = subscription(SubscriptionStatus.ACTIVE);
+        active.setActivatedByPaymentId("pay-1");
+        when(subscriptionRepository.findById("sub-1")).thenReturn(Optional.of(active));
+
+        assertThat(service.activateFromPayment("sub-1", "pay-1")).isTrue();
+
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Subscription.class));
+    }
+
+    @Test
+    void paymentDoesNotReactivateAPausedSubscription() {
+        when(subscriptionRepository.findById("sub-1")).thenReturn(Optional.of(subscription(SubscriptionStatus.PAUSED)));
+        transitionReturns(null);
+
+        assertThat(service.activateFromPayment("sub-1", "pay-2")).isFalse();
+    }
+
+    @Test
+    void suspendOnlyAppliesToAnActiveSubscription() {
+        transitionReturns(null);
+
+        assertThat(service.suspendForNonPayment("sub-1", SubscriptionStatus.INACTIVE)).isFalse();
+    }
+
+    @Test
+    void deliveryWithinQuotaIsCountedInOneUpdate() {
+        incrementsApply(true);
+
+        assertThat(service.consumeDeliveryQuota("sub-1")).isTrue();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(query.capture(), any(Update.class), eq(Subscription.class));
+        assertThat(query.getValue().getQueryObject().get("quotaMonth")).isEqualTo(YearMonth.now().toString());
+        verify(mongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), eq(Subscription.class));
+    }
+
+    @Test
+    void firstDeliveryOfANewMonthRollsTheCounterOver() {
+        incrementsApply(false, true);
+        rolloversApply(1);
+
+        assertThat(service.consumeDeliveryQuota("sub-1")).isTrue();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(query.capture(), update.capture(), eq(Subscription.class));
+        assertThat(query.getValue().getQueryObject().get("quotaMonth"))
+                .isEqualTo(new Document("$ne", YearMonth.now().toString()));
+        assertThat(((Document) update.getValue().getUpdateObject().get("$set")).get("deliveriesThisMonth"))
+                .isEqualTo(0);
+    }
+
+    @Test
+    void rolloverDoneConcurrentlyByAnotherCallerStillCounts() {
+        incrementsApply(false, true);
+        rolloversApply(0);
+
+        assertThat(service.consumeDeliveryQuota("sub-1")).isTrue();
+    }
+
+    @Test
+    void exhaustedQuotaIsRefused() {
+        incrementsApply(false, false);
+        rolloversApply(0);
+
+        assertThat(service.consumeDeliveryQuota("sub-1")).isFalse();
+    }
+
+    @Test
+    void releaseOnlyGivesBackThisMonthsQuota() {
+        service.releaseDeliveryQuota("sub-1");
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(Subscription.class));
+        assertThat(query.getValue().getQueryObject().get("quotaMonth")).isEqualTo(YearMonth.now().toString());
+        assertThat(query.getValue().getQueryObject().get("deliveriesThisMonth")).isEqualTo(new Document("$gt", 0));
+        assertThat(update.getValue().getUpdateObject().get("$inc")).isEqualTo(new Document("deliveriesThisMonth", -1));
+    }
+
+    @Test
+    void monthlyResetCoversOnePartition() {
+        rolloversApply(3);
+
+        assertThat(service.resetDeliveryQuotas(1, 4)).isEqualTo(3);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(query.capture(), any(Update.class), eq(Subscription.class));
+        assertThat(query.getValue().getQueryObject()).containsKeys("userBucket", "quotaMonth");
+    }
+
+    private void incrementsApply(boolean first, boolean... then) {
+        UpdateResult[] results = new UpdateResult[then.length];
+        for (int i = 0; i < then.length; i++) {
+            results[i] = updated(then[i] ? 1 : 0);
+        }
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Subscription.class)))
+                .thenReturn(updated(first ? 1 : 0), results);
+    }
+
+    private void rolloversApply(long modified) {
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Subscription.class)))
+                .thenReturn(updated(modified));
+    }
+
+    private static UpdateResult updated(long modified) {
+        return UpdateResult.acknowledged(modified, modified, null);
+    }
+
+    private void transitionReturns(Subscription result) {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Subscription.class))).thenReturn(result);
+    }
+
+    private static Subscription subscription(String status) {
+        Subscription subscription = new Subscription();
+        subscription.setId("sub-1");
+        subscription.setUserId("user-1");
+        subscription.setTier("ESSENTIALS");
+        subscription.setBillingCycle("MONTHLY");
+        subscription.setStatus(status);
+        return subscription;
+    }
+}
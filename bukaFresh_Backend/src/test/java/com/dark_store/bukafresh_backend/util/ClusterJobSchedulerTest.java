@@ -0,0 +1,246 @@
+package com.dark_store.bukafresh_backend.util;
+
+import com.dark_store.bukafresh_backend.config.ClusterJobProperties;
+import com.dark_store.bukafresh_backend.service.JobLockService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClusterJobSchedulerTest {
+
+    private final Map<String, Lock> lockTable = new HashMap<>();
+    private final List<ClusterJobScheduler> schedulers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        schedulers.forEach(ClusterJobScheduler::shutdown);
+    }
+
+    @Test
+    void everyPartitionRunsOncePerRunAcrossNodes() throws InterruptedException {
+        RecordingJob job = new RecordingJob(8, leaseHeld -> { });
+        ClusterJobScheduler nodeA = scheduler(job, new SharedLocks("node-a"), 4, new SimpleMeterRegistry());
+        ClusterJobScheduler nodeB = scheduler(job, new SharedLocks("node-b"), 4, new SimpleMeterRegistry());
+
+        // Each node has four slots, so two ticks each cover all eight partitions
+        nodeA.tick();
+        nodeB.tick();
+        assertThat(job.finished.await(10, TimeUnit.SECONDS)).isTrue();
+        nodeA.tick();
+        nodeB.tick();
+        Thread.sleep(200);
+
+        assertThat(job.runs).hasSize(8).doesNotHaveDuplicates();
+        synchronized (lockTable) {
+            assertThat(lockTable.values()).allMatch(lock -> lock.owner == null && lock.lastCompletedRun != null);
+        }
+    }
+
+    @Test
+    void partitionStopsAndIsNotCompletedOnceItsLeaseIsLost() throws InterruptedException {
+        CountDownLatch stopped = new CountDownLatch(1);
+        RecordingJob job = new RecordingJob(1, leaseHeld -> {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (leaseHeld.getAsBoolean() && System.nanoTime() < deadline) {
+                sleep(10);
+            }
+            if (!leaseHeld.getAsBoolean()) {
+                stopped.countDown();
+            }
+        });
+        SharedLocks locks = new SharedLocks("node-a");
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ClusterJobScheduler scheduler = scheduler(job, locks, 1, registry);
+
+        scheduler.tick();
+        // Another node takes the lease over, so the next heartbeat is refused
+        synchronized (lockTable) {
+            lockTable.get("test-job:0").owner = "node-b";
+        }
+
+        assertThat(stopped.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(job.finished.await(10, TimeUnit.SECONDS)).isTrue();
+        awaitCount(registry, "lease_lost");
+        synchronized (lockTable) {
+            assertThat(lockTable.get("test-job:0").lastCompletedRun).isNull();
+            assertThat(lockTable.get("test-job:0").owner).isEqualTo("node-b");
+        }
+    }
+
+    @Test
+    void failedPartitionIsReleasedForAnotherNode() throws InterruptedException {
+        RecordingJob job = new RecordingJob(1, leaseHeld -> {
+            throw new IllegalStateException("boom");
+        });
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ClusterJobScheduler scheduler = scheduler(job, new SharedLocks("node-a"), 1, registry);
+
+        scheduler.tick();
+
+        awaitCount(registry, "failed");
+        SharedLocks other = new SharedLocks("node-b");
+        assertThat(other.tryAcquire("test-job:0", job.currentRun(), Duration.ofMinutes(1))).isTrue();
+    }
+
+    private ClusterJobScheduler scheduler(ClusterJob job, JobLockService locks, int workers, MeterRegistry registry) {
+        ClusterJobProperties properties = new ClusterJobProperties();
+        properties.setWorkers(workers);
+        properties.setLease(Duration.ofSeconds(2));
+        properties.setHeartbeat(Duration.ofMillis(50));
+        ClusterJobScheduler scheduler = new ClusterJobScheduler(List.of(job), locks, properties, registry);
+        schedulers.add(scheduler);
+        return scheduler;
+    }
+
+    private static void awaitCount(MeterRegistry registry, String outcome) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (registry.counter("cluster_jobs.partitions", "outcome", outcome).count() < 1
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(registry.counter("cluster_jobs.partitions", "outcome", outcome).count()).isEqualTo(1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Lock {
+        String owner;
+        Instant leaseExpiresAt;
+        Long lastCompletedRun;
+    }
+
+    private interface Body {
+        void run(BooleanSupplier leaseHeld);
+    }
+
+    private static final class RecordingJob implements ClusterJob {
+        final int partitions;
+        final Body body;
+        final List<Integer> runs = new CopyOnWriteArrayList<>();
+        final CountDownLatch finished;
+
+        RecordingJob(int partitions, Body body) {
+            this.partitions = partitions;
+            this.body = body;
+            this.finished = new CountDownLatch(partitions);
+        }
+
+        long currentRun() {
+            return Instant.now().toEpochMilli() / interval().toMillis();
+        }
+
+        @Override
+        public String name() {
+            return "test-job";
+        }
+
+        @Override
+        public int partitions() {
+            return partitions;
+        }
+
+        @Override
+        public Duration interval() {
+            return Duration.ofDays(1);
+        }
+
+        @Override
+        public boolean enabled() {
+            return true;
+        }
+
+        @Override
+        public void run(int partition, int partitions, BooleanSupplier leaseHeld) {
+            runs.add(partition);
+            try {
+                body.run(leaseHeld);
+            } finally {
+                finished.countDown();
+            }
+        }
+    }
+
+    // Same semantics as JobLockServiceImpl, over a lock table shared by every node in the test
+    private final class SharedLocks implements JobLockService {
+        private final String nodeId;
+
+        SharedLocks(String nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        @Override
+        public boolean tryAcquire(String lockId, long run, Duration lease) {
+            synchronized (lockTable) {
+                Lock lock = lockTable.computeIfAbsent(lockId, id -> new Lock());
+                Instant now = Instant.now();
+                if (Long.valueOf(run).equals(lock.lastCompletedRun)
+                        || (lock.leaseExpiresAt != null && lock.leaseExpiresAt.isAfter(now))) {
+                    return false;
+                }
+                lock.owner = nodeId;
+                lock.leaseExpiresAt = now.plus(lease);
+                return true;
+            }
+        }
+
+        @Override
+        public boolean renew(String lockId, Duration lease) {
+            synchronized (lockTable) {
+                Lock lock = lockTable.get(lockId);
+                if (lock == null || !nodeId.equals(lock.owner)) {
+                    return false;
+                }
+                lock.leaseExpiresAt = Instant.now().plus(lease);
+                return true;
+            }
+        }
+
+        @Override
+        public void complete(String lockId, long run) {
+            synchronized (lockTable) {
+                Lock lock = lockTable.get(lockId);
+                if (lock != null && nodeId.equals(lock.owner)) {
+                    lock.lastCompletedRun = run;
+                    lock.owner = null;
+                    lock.leaseExpiresAt = null;
+                }
+            }
+        }
+
+        @Override
+        public void release(String lockId) {
+            synchronized (lockTable) {
+                Lock lock = lockTable.get(lockId);
+                if (lock != null && nodeId.equals(lock.owner)) {
+                    lock.owner = null;
+                    lock.leaseExpiresAt = null;
+                }
+            }
+        }
+
+        @Override
+        public String nodeId() {
+            return nodeId;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.dark_store.bukafresh_backend.util;
+
+import com.dark_store.bukafresh_backend.config.KafkaConfig;
+import com.dark_store.bukafresh_backend.config.PaymentEventsProperties;
+import com.dark_store.bukafresh_backend.dto.event.PaymentSucceededEvent;
+import com.dark_store.bukafresh_backend.model.Delivery;
+import com.dark_store.bukafresh_backend.service.DeliveryService;
+import com.dark_store.bukafresh_backend.service.SubscriptionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(
+        classes = PaymentSagaListenersTest.SagaConfig.class,
+        properties = {
+                "payment.events.partitions=1",
+                "payment.events.consumer.initial-backoff=100ms",
+                "payment.events.consumer.max-attempts=3"
+        }
+)
+@EmbeddedKafka(partitions = 1, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class PaymentSagaListenersTest {
+
+    @Configuration
+    @ImportAutoConfiguration({ConfigurationPropertiesAutoConfiguration.class, KafkaAutoConfiguration.class})
+    @Import({
+            KafkaConfig.class,
+            PaymentEventsProperties.class,
+            SubscriptionActivationListener.class,
+            DeliveryCreationListener.class
+    })
+    static class SagaConfig {
+    }
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private PaymentEventsProperties properties;
+
+    @MockitoBean
+    private SubscriptionService subscriptionService;
+
+    @MockitoBean
+    private DeliveryService deliveryService;
+
+    @Test
+    void paymentSucceededActivatesSubscriptionThenCreatesDelivery() {
+        when(subscriptionService.activateFromPayment("sub-1", "pay-1")).thenReturn(true);
+
+        publish("sub-1", "pay-1");
+
+        verify(subscriptionService, timeout(30_000)).activateFromPayment("sub-1", "pay-1");
+        verify(deliveryService, timeout(30_000)).createDeliveryFromPayment("pay-1", "sub-1");
+    }
+
+    @Test
+    void alreadyActiveSubscriptionCreatesNoDelivery() {
+        when(subscriptionService.activateFromPayment("sub-2", "pay-2")).thenReturn(false);
+
+        publish("sub-2", "pay-2");
+
+        verify(subscriptionService, timeout(30_000)).activateFromPayment("sub-2", "pay-2");
+        verify(deliveryService, after(2_000).never()).createDeliveryFromPayment(eq("pay-2"), any());
+    }
+
+    @Test
+    void failedDeliveryCreationIsRetried() {
+        when(subscriptionService.activateFromPayment("sub-3", "pay-3")).thenReturn(true);
+        when(deliveryService.createDeliveryFromPayment("pay-3", "sub-3"))
+                .thenThrow(new IllegalStateException("address lookup failed"))
+                .thenReturn(new Delivery());
+
+        publish("sub-3", "pay-3");
+
+        verify(deliveryService, timeout(30_000).times(2)).createDeliveryFromPayment("pay-3", "sub-3");
+        verify(subscriptionService, times(1)).activateFromPayment("sub-3", "pay-3");
+    }
+
+    private void publish(String subscriptionId, String paymentId) {
+        kafkaTemplate.send(properties.getPaymentSucceededTopic(), subscriptionId, new PaymentSucceededEvent(
+                UUID.randomUUID().toString(),
+                paymentId,
+                "PAY_" + paymentId,
+                subscriptionId,
+                "user-1",
+                new BigDecimal("80000"),
+                LocalDateTime.now()
+        )).join();
+    }
+}